@@ -0,0 +1,57 @@
+package br.com.wepdev.dscatalog.components;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Geração do catálogo, usada na chave dos caches de busca. Qualquer escrita em produto ou
+ * categoria incrementa o contador e as entradas da geração anterior deixam de ser encontradas,
+ * sem varrer o cache; elas saem depois pelo limite de memória ou pelo TTL.
+ */
+@Component
+public class CatalogGeneration {
+
+	private final AtomicLong generation = new AtomicLong();
+
+	// muda a cada inicialização: a geração volta a zero no restart e não pode repetir um ETag antigo
+	private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+	public long current() {
+		return generation.get();
+	}
+
+	/**
+	 * ETag das leituras do catálogo. Não depende do conteúdo, então um If-None-Match é respondido
+	 * com 304 sem consultar o banco nem serializar nada. Deve ser lido antes de buscar os dados:
+	 * se uma escrita acontecer no meio, o cliente fica com o ETag antigo e revalida na próxima.
+	 *
+	 * Restrição: vale para uma instância só. Época e contador ficam na memória desta JVM, então
+	 * com várias instâncias atrás de um balanceador a escrita em um nó não muda o ETag dos outros
+	 * (que continuariam respondendo 304 com dados velhos). Para escalar horizontalmente a geração
+	 * precisa vir de um estado compartilhado (uma linha de versão no banco, por exemplo).
+	 */
+	public String etag() {
+		return "\"" + epoch + "-" + generation.get() + "\"";
+	}
+
+	/**
+	 * Dentro de uma transação o incremento só acontece depois do commit: antes disso uma leitura
+	 * concorrente ainda veria os dados antigos e os guardaria sob a geração nova.
+	 */
+	public void bump() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					generation.incrementAndGet();
+				}
+			});
+		}
+		else {
+			generation.incrementAndGet();
+		}
+	}
+}
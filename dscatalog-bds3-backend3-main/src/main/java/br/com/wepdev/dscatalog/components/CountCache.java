@@ -0,0 +1,141 @@
+package br.com.wepdev.dscatalog.components;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import br.com.wepdev.dscatalog.config.PrimaryReads;
+
+/**
+ * Totais aproximados para as listagens paginadas. O primeiro pedido de uma chave conta no banco;
+ * depois o valor é servido do cache e, quando fica velho, é recontado em segundo plano enquanto
+ * o valor anterior continua sendo devolvido.
+ *
+ * A recontagem roda em threads próprias (catalog.count-cache.refresh-threads), e não no
+ * commonPool, para o COUNT bloqueado no JDBC não segurar streams paralelos e outros usuários
+ * do pool comum. A fila não cresce sem limite: cada chave tem no máximo uma recontagem pendente.
+ * As contagens leem do primário quando há réplica ({@link PrimaryReads}).
+ */
+@Component
+public class CountCache implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(CountCache.class);
+
+	private final Cache<String, Entry> cache;
+
+	private final long refreshNanos;
+
+	// incrementado a cada invalidate, antes da remoção: a contagem que começou antes não é guardada
+	private final AtomicLong invalidations = new AtomicLong();
+
+	private final ExecutorService refresher;
+
+	private final PrimaryReads primaryReads;
+
+	public CountCache(@Value("${catalog.count-cache.refresh-seconds:60}") long refreshSeconds,
+			@Value("${catalog.count-cache.max-entries:1000}") long maxEntries,
+			@Value("${catalog.count-cache.refresh-threads:2}") int refreshThreads, PrimaryReads primaryReads) {
+		this.primaryReads = primaryReads;
+		this.refreshNanos = TimeUnit.SECONDS.toNanos(refreshSeconds);
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxEntries)
+				.expireAfterWrite(refreshSeconds * 10, TimeUnit.SECONDS)
+				.build();
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("count-refresh-");
+		threadFactory.setDaemon(true);
+		this.refresher = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), threadFactory);
+	}
+
+	public long get(String key, LongSupplier counter) {
+		Entry entry = cache.getIfPresent(key);
+		if (entry == null) {
+			long generation = invalidations.get();
+			long total = primaryReads.call(counter::getAsLong);
+			Entry loaded = new Entry(total);
+			cache.put(key, loaded);
+			// um invalidate durante a contagem pode ter rodado antes do put; aí o total é anterior à escrita
+			if (invalidations.get() != generation) {
+				cache.asMap().remove(key, loaded);
+			}
+			return total;
+		}
+		if (System.nanoTime() - entry.loadedAt > refreshNanos && entry.refreshing.compareAndSet(false, true)) {
+			try {
+				refresher.execute(() -> refresh(key, entry, counter));
+			}
+			catch (RejectedExecutionException e) {
+				entry.refreshing.set(false);
+			}
+		}
+		return entry.total;
+	}
+
+	/**
+	 * Dentro de transação a remoção fica para depois do commit, como em
+	 * {@link CatalogGeneration#bump()}: antes dele uma contagem concorrente ainda veria os dados
+	 * antigos e guardaria o total velho sem perceber a invalidação.
+	 */
+	public void invalidate(String prefix) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					evict(prefix);
+				}
+			});
+		}
+		else {
+			evict(prefix);
+		}
+	}
+
+	private void evict(String prefix) {
+		invalidations.incrementAndGet();
+		cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+	}
+
+	private void refresh(String key, Entry entry, LongSupplier counter) {
+		try {
+			cache.asMap().replace(key, entry, new Entry(primaryReads.call(counter::getAsLong)));
+		}
+		catch (RuntimeException e) {
+			logger.warn("Falha ao recontar {}: {}", key, e.getMessage());
+		}
+		finally {
+			entry.refreshing.set(false);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		refresher.shutdownNow();
+	}
+
+	private static final class Entry {
+		private final long total;
+		private final long loadedAt = System.nanoTime();
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		private Entry(long total) {
+			this.total = total;
+		}
+	}
+}
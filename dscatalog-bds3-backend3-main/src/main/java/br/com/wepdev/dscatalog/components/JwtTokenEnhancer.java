@@ -3,6 +3,7 @@ package br.com.wepdev.dscatalog.components;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
 import org.springframework.security.oauth2.common.OAuth2AccessToken;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Component;
 
 import br.com.wepdev.dscatalog.domain.User;
 import br.com.wepdev.dscatalog.repositories.UserRepository;
+import br.com.wepdev.dscatalog.services.CatalogUserDetails;
 
 @Component
 public class JwtTokenEnhancer implements TokenEnhancer {
@@ -18,18 +20,27 @@ public class JwtTokenEnhancer implements TokenEnhancer {
 
 	private final UserRepository userRepository;
 
-    public JwtTokenEnhancer(UserRepository userRepository) {
+	private final UserCache userCache;
+
+    public JwtTokenEnhancer(UserRepository userRepository, UserCache userCache) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
     }
 
     @Override
 	public OAuth2AccessToken enhance(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
 
-		User user = userRepository.findByEmail(authentication.getName());
-		
+		// o login acabou de pôr o usuário no cache; o banco só é consultado se ele já expirou
 		Map<String, Object> map = new HashMap<>();
-		map.put("userFirstName", user.getFirstName());
-		map.put("userId", user.getId());
+		if (userCache.getUserFromCache(authentication.getName()) instanceof CatalogUserDetails cached) {
+			map.put("userFirstName", cached.getFirstName());
+			map.put("userId", cached.getId());
+		}
+		else {
+			User user = userRepository.findByEmail(authentication.getName());
+			map.put("userFirstName", user.getFirstName());
+			map.put("userId", user.getId());
+		}
 
 		DefaultOAuth2AccessToken token = (DefaultOAuth2AccessToken) accessToken;
 		token.setAdditionalInformation(map);
@@ -0,0 +1,33 @@
+package br.com.wepdev.dscatalog.components;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Listagem no formato enxuto ({@link PageEnvelopeSerializer}). Só é usado quando o cliente pede
+ * Accept: application/vnd.dscatalog.page+json; sem isso as listagens continuam no formato padrão
+ * do Page (totalElements, totalPages, number, pageable...), do qual os clientes atuais dependem.
+ */
+@JsonSerialize(using = PageEnvelopeSerializer.class)
+public final class PageEnvelope {
+
+	public static final String MEDIA_TYPE_VALUE = "application/vnd.dscatalog.page+json";
+
+	public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+	private final Slice<?> slice;
+
+	private PageEnvelope(Slice<?> slice) {
+		this.slice = slice;
+	}
+
+	public static PageEnvelope of(Slice<?> slice) {
+		return new PageEnvelope(slice);
+	}
+
+	public Slice<?> getSlice() {
+		return slice;
+	}
+}
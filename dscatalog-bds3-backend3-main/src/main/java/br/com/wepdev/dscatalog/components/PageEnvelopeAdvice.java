@@ -0,0 +1,40 @@
+package br.com.wepdev.dscatalog.components;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Troca o Slice/Page da resposta pelo {@link PageEnvelope} quando a negociação de conteúdo
+ * escolheu application/vnd.dscatalog.page+json. Os controllers continuam devolvendo Slice e
+ * quem pede application/json (ou qualquer tipo) recebe o formato de sempre.
+ *
+ * Os dois formatos saem da mesma URL com o mesmo ETag da geração, então toda listagem responde
+ * com Vary: Accept; sem ele o navegador revalidaria um formato e reaproveitaria o outro no 304.
+ */
+@ControllerAdvice
+public class PageEnvelopeAdvice implements ResponseBodyAdvice<Object> {
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+			Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+			ServerHttpResponse response) {
+		if (!(body instanceof Slice<?> slice)) {
+			return body;
+		}
+		response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		return PageEnvelope.MEDIA_TYPE.equalsTypeAndSubtype(selectedContentType) ? PageEnvelope.of(slice) : slice;
+	}
+}
@@ -0,0 +1,53 @@
+package br.com.wepdev.dscatalog.components;
+
+import java.io.IOException;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+/**
+ * Envelope das listagens: {"content":[...],"page":0,"size":20,"total":25,"hasNext":true}. O
+ * total só aparece quando a listagem é um Page (modos exact e estimated). Evita a serialização
+ * por reflexão do PageImpl, que repete pageable, sort e outros campos derivados em toda resposta.
+ */
+public class PageEnvelopeSerializer extends JsonSerializer<PageEnvelope> {
+
+	@Override
+	public void serialize(PageEnvelope envelope, JsonGenerator gen, SerializerProvider provider) throws IOException {
+		Slice<?> slice = envelope.getSlice();
+		gen.writeStartObject();
+		gen.writeFieldName("content");
+		gen.writeStartArray();
+		// os itens de uma página são do mesmo tipo: procura o serializer uma vez só
+		Class<?> lastType = null;
+		JsonSerializer<Object> serializer = null;
+		for (Object item : slice.getContent()) {
+			if (item == null) {
+				gen.writeNull();
+				continue;
+			}
+			if (item.getClass() != lastType) {
+				lastType = item.getClass();
+				serializer = provider.findValueSerializer(lastType);
+			}
+			serializer.serialize(item, gen, provider);
+		}
+		gen.writeEndArray();
+		gen.writeNumberField("page", slice.getNumber());
+		gen.writeNumberField("size", slice.getSize());
+		if (slice instanceof Page<?> page) {
+			gen.writeNumberField("total", page.getTotalElements());
+		}
+		gen.writeBooleanField("hasNext", slice.hasNext());
+		gen.writeEndObject();
+	}
+
+	@Override
+	public Class<PageEnvelope> handledType() {
+		return PageEnvelope.class;
+	}
+}
@@ -0,0 +1,153 @@
+package br.com.wepdev.dscatalog.components;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import br.com.wepdev.dscatalog.config.PrimaryReads;
+import br.com.wepdev.dscatalog.dto.ProductSuggestionDTO;
+import br.com.wepdev.dscatalog.repositories.ProductRepository;
+
+/**
+ * Índice em memória dos nomes dos produtos para o autocomplete. Cada nome entra normalizado (sem
+ * acento, minúsculo) uma vez para cada palavra, a partir do início dela, em um mapa ordenado: a
+ * busca por prefixo é um subMap e "gam" encontra tanto "Gamer Chair" quanto "PC Gamer". É
+ * carregado na primeira busca e mantido pelas escritas do ProductService e da importação.
+ */
+@Component
+public class ProductNameIndex {
+
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+	private static final Pattern SPACES = Pattern.compile("\\s+");
+
+	private final ProductRepository repository;
+
+	// chave: trecho normalizado + '\0' + id, para nomes iguais não se sobrescreverem
+	private final NavigableMap<String, ProductSuggestionDTO> entries = new ConcurrentSkipListMap<>();
+
+	private final Map<Long, List<String>> keysById = new ConcurrentHashMap<>();
+
+	private volatile boolean loaded;
+
+	private final Object lock = new Object();
+
+	private final PrimaryReads primaryReads;
+
+	public ProductNameIndex(ProductRepository repository, PrimaryReads primaryReads) {
+		this.repository = repository;
+		this.primaryReads = primaryReads;
+	}
+
+	/**
+	 * Até limit produtos cujo nome tem uma palavra começando por prefix, na ordem do trecho
+	 * encontrado. Não consulta o banco depois da carga inicial.
+	 */
+	public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+		ensureLoaded();
+		String from = normalize(prefix);
+		if (from.isEmpty()) {
+			return List.of();
+		}
+		Map<Long, ProductSuggestionDTO> result = new LinkedHashMap<>();
+		for (ProductSuggestionDTO dto : entries.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+			result.putIfAbsent(dto.getId(), dto);
+			if (result.size() == limit) {
+				break;
+			}
+		}
+		return new ArrayList<>(result.values());
+	}
+
+	/**
+	 * Inclui ou renomeia um produto. Dentro de uma transação só vale depois do commit, como o
+	 * {@link CatalogGeneration#bump()}.
+	 */
+	public void put(Long id, String name) {
+		afterCommit(() -> {
+			remove(id);
+			add(id, name);
+		});
+	}
+
+	public void delete(Long id) {
+		afterCommit(() -> remove(id));
+	}
+
+	static String normalize(String value) {
+		String text = Normalizer.normalize(value, Normalizer.Form.NFD);
+		text = MARKS.matcher(text).replaceAll("");
+		return SPACES.matcher(text.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+	}
+
+	/*
+	 * A carga segura o lock durante a leitura do banco. Uma escrita que termina nesse meio tempo
+	 * espera e é aplicada por cima da carga; como put e delete substituem tudo o que havia para o
+	 * id, aplicar uma escrita que a carga já viu não muda nada.
+	 */
+	private void ensureLoaded() {
+		if (loaded) {
+			return;
+		}
+		synchronized (lock) {
+			if (!loaded) {
+				primaryReads.call(repository::findAllNames).forEach(dto -> add(dto.getId(), dto.getName()));
+				loaded = true;
+			}
+		}
+	}
+
+	private void afterCommit(Runnable change) {
+		Runnable apply = () -> {
+			synchronized (lock) {
+				// antes da carga não há o que atualizar: ela vai ler o banco já com a escrita
+				if (loaded) {
+					change.run();
+				}
+			}
+		};
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					apply.run();
+				}
+			});
+		}
+		else {
+			apply.run();
+		}
+	}
+
+	private void add(Long id, String name) {
+		String text = normalize(name);
+		ProductSuggestionDTO dto = new ProductSuggestionDTO(id, name);
+		List<String> keys = new ArrayList<>();
+		for (int i = 0; i < text.length(); i++) {
+			if (i == 0 || text.charAt(i - 1) == ' ') {
+				String key = text.substring(i) + '\0' + id;
+				entries.put(key, dto);
+				keys.add(key);
+			}
+		}
+		keysById.put(id, keys);
+	}
+
+	private void remove(Long id) {
+		List<String> keys = keysById.remove(id);
+		if (keys != null) {
+			keys.forEach(entries::remove);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package br.com.wepdev.dscatalog.components;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import br.com.wepdev.dscatalog.domain.Role;
+import br.com.wepdev.dscatalog.repositories.RoleRepository;
+import br.com.wepdev.dscatalog.services.exceptions.InvalidReferenceException;
+
+/**
+ * Cópia em memória dos perfis (tb_role tem poucas linhas e só muda por migration). Cada id aponta
+ * para uma única instância de Role e um único GrantedAuthority, compartilhados entre as
+ * requisições; as listas de authorities também são compartilhadas por combinação de perfis.
+ * Carregada quando a aplicação sobe e recarregada quando aparece um id que ela não conhece.
+ */
+@Component
+public class RoleRegistry {
+
+	private static final String FIELD = "roles";
+
+	private final RoleRepository repository;
+
+	private volatile Snapshot snapshot;
+
+	private final Object lock = new Object();
+
+	public RoleRegistry(RoleRepository repository) {
+		this.repository = repository;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void refresh() {
+		synchronized (lock) {
+			snapshot = new Snapshot(repository.findAll());
+		}
+	}
+
+	/**
+	 * Perfis dos ids pedidos, sem consulta ao banco. As instâncias não estão anexadas a nenhuma
+	 * sessão, mas servem como referência em User.roles: o Hibernate só precisa do id.
+	 *
+	 * @throws InvalidReferenceException se algum id não existe (ou é nulo), mesmo depois de recarregar
+	 */
+	public List<Role> resolve(Collection<Long> ids) {
+		Set<Long> wanted = new LinkedHashSet<>(ids);
+		Snapshot current = current();
+		if (!current.roles.keySet().containsAll(wanted)) {
+			refresh();
+			current = current();
+		}
+		List<Role> result = new ArrayList<>();
+		List<Long> missing = new ArrayList<>();
+		for (Long id : wanted) {
+			Role role = (id == null) ? null : current.roles.get(id);
+			if (role == null) {
+				missing.add(id);
+			}
+			else {
+				result.add(role);
+			}
+		}
+		if (!missing.isEmpty()) {
+			throw new InvalidReferenceException(FIELD, missing);
+		}
+		return result;
+	}
+
+	/**
+	 * Authorities de um usuário. A mesma combinação de perfis devolve sempre a mesma lista
+	 * imutável; perfil desconhecido (criado depois da carga) cai na construção direta.
+	 */
+	public List<GrantedAuthority> authoritiesOf(Collection<Role> roles) {
+		Snapshot current = current();
+		Set<Long> ids = new LinkedHashSet<>();
+		for (Role role : roles) {
+			if (!current.authorities.containsKey(role.getId())) {
+				return roles.stream().map(r -> (GrantedAuthority) new SimpleGrantedAuthority(r.getAuthority())).toList();
+			}
+			ids.add(role.getId());
+		}
+		return current.lists.computeIfAbsent(ids, key -> key.stream().map(current.authorities::get).toList());
+	}
+
+	private Snapshot current() {
+		Snapshot current = snapshot;
+		if (current == null) {
+			synchronized (lock) {
+				if (snapshot == null) {
+					snapshot = new Snapshot(repository.findAll());
+				}
+				current = snapshot;
+			}
+		}
+		return current;
+	}
+
+	private static final class Snapshot {
+
+		private final Map<Long, Role> roles = new HashMap<>();
+
+		private final Map<Long, GrantedAuthority> authorities = new HashMap<>();
+
+		private final Map<Set<Long>, List<GrantedAuthority>> lists = new ConcurrentHashMap<>();
+
+		Snapshot(List<Role> loaded) {
+			for (Role role : loaded) {
+				roles.put(role.getId(), new Role(role.getId(), role.getAuthority()));
+				authorities.put(role.getId(), new SimpleGrantedAuthority(role.getAuthority()));
+			}
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package br.com.wepdev.dscatalog.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import br.com.wepdev.dscatalog.services.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Bulkhead do BCrypt: o hash roda em um pool próprio, com threads e fila limitadas, em vez de
+ * ocupar as threads do Tomcat com CPU. Com a fila cheia a chamada falha na hora com
+ * ServiceBusyException (503), então uma rajada de logins não deixa as leituras do catálogo sem
+ * CPU nem sem threads. A espera pelo resultado também é limitada: passado o timeout a tarefa é
+ * cancelada e a chamada falha com o mesmo 503, em vez de segurar a thread do Tomcat na fila.
+ *
+ * Métricas no actuator: password.hash (latência do hash, por operation), password.hash.queue,
+ * password.hash.active, password.hash.rejected e password.hash.timeout.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder, DisposableBean {
+
+	private final PasswordEncoder delegate;
+
+	private final ThreadPoolExecutor executor;
+
+	private volatile Timer encodeTimer;
+
+	private volatile Timer matchesTimer;
+
+	private final long timeoutMillis;
+
+	private volatile Counter rejected;
+
+	private volatile Counter timedOut;
+
+	public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMillis) {
+		this.delegate = delegate;
+		this.timeoutMillis = timeoutMillis;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hash-");
+		threadFactory.setDaemon(true);
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return run(() -> timed(encodeTimer, () -> delegate.encode(rawPassword)));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return run(() -> timed(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword)));
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+
+	private <T> T run(Callable<T> task) {
+		Future<T> future;
+		try {
+			future = executor.submit(task);
+		}
+		catch (RejectedExecutionException e) {
+			Counter counter = rejected;
+			if (counter != null) {
+				counter.increment();
+			}
+			throw new ServiceBusyException("Servidor ocupado, tente novamente em instantes");
+		}
+		try {
+			return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException e) {
+			future.cancel(true);
+			Counter counter = timedOut;
+			if (counter != null) {
+				counter.increment();
+			}
+			throw new ServiceBusyException("Servidor ocupado, tente novamente em instantes");
+		}
+		catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new ServiceBusyException("Requisição interrompida");
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private static <T> T timed(Timer timer, Callable<T> hash) throws Exception {
+		return (timer != null) ? timer.recordCallable(hash) : hash.call();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		encodeTimer = Timer.builder("password.hash").tag("operation", "encode").register(registry);
+		matchesTimer = Timer.builder("password.hash").tag("operation", "matches").register(registry);
+		rejected = Counter.builder("password.hash.rejected").register(registry);
+		timedOut = Counter.builder("password.hash.timeout").register(registry);
+		Gauge.builder("password.hash.queue", executor, e -> e.getQueue().size()).register(registry);
+		Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,53 @@
+package br.com.wepdev.dscatalog.config;
+
+import java.io.Serial;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
+import org.springframework.security.oauth2.provider.error.DefaultWebResponseExceptionTranslator;
+import org.springframework.security.oauth2.provider.error.WebResponseExceptionTranslator;
+
+import br.com.wepdev.dscatalog.services.exceptions.ServiceBusyException;
+
+/**
+ * Tradutor de erros do /oauth/token. O TokenEndpoint trata as próprias exceções e transformaria a
+ * ServiceBusyException (pool de hash saturado ao conferir a senha do usuário) em 500; aqui ela
+ * vira 503 temporarily_unavailable com Retry-After. O resto segue o tradutor padrão.
+ */
+public class BusyAwareExceptionTranslator implements WebResponseExceptionTranslator<OAuth2Exception> {
+
+	private final WebResponseExceptionTranslator<OAuth2Exception> fallback = new DefaultWebResponseExceptionTranslator();
+
+	@Override
+	public ResponseEntity<OAuth2Exception> translate(Exception e) throws Exception {
+		ServiceBusyException busy = ServiceBusyFilter.findBusy(e);
+		if (busy == null) {
+			return fallback.translate(e);
+		}
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, ServiceBusyException.RETRY_AFTER_SECONDS)
+				.header(HttpHeaders.CACHE_CONTROL, "no-store")
+				.body(new TemporarilyUnavailableException(busy.getMessage()));
+	}
+
+	static class TemporarilyUnavailableException extends OAuth2Exception {
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		TemporarilyUnavailableException(String msg) {
+			super(msg);
+		}
+
+		@Override
+		public String getOAuth2ErrorCode() {
+			return "temporarily_unavailable";
+		}
+
+		@Override
+		public int getHttpErrorCode() {
+			return HttpStatus.SERVICE_UNAVAILABLE.value();
+		}
+	}
+}
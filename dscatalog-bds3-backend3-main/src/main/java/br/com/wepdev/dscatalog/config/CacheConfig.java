@@ -0,0 +1,120 @@
+package br.com.wepdev.dscatalog.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.domain.Page;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.cache.SpringCacheBasedUserCache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import br.com.wepdev.dscatalog.dto.CategoryDTO;
+import br.com.wepdev.dscatalog.dto.ProductDTO;
+
+/**
+ * Caches em memória da aplicação. Cada cache tem limite de tamanho e TTL próprios e registra
+ * estatísticas, publicadas pelo actuator em /actuator/metrics/cache.gets (result=hit|miss).
+ * O interceptor de cache roda por fora do @Transactional, então um hit não abre transação nem
+ * pega conexão do pool. O proxy transacional adia put/evict feitos dentro de uma transação para
+ * depois do commit, assim uma leitura concorrente não recoloca no cache o valor antigo.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+	public static final String PRODUCTS = "products";
+
+	public static final String PRODUCT_SEARCH = "productSearch";
+
+	public static final String PRODUCT_FACETS = "productFacets";
+
+	public static final String USERS = "users";
+
+	@Value("${catalog.cache.products.max-size:10000}")
+	private long productsMaxSize;
+
+	@Value("${catalog.cache.products.ttl-seconds:600}")
+	private long productsTtlSeconds;
+
+	@Value("${catalog.cache.users.max-size:10000}")
+	private long usersMaxSize;
+
+	@Value("${catalog.cache.users.ttl-seconds:300}")
+	private long usersTtlSeconds;
+
+	@Value("${catalog.cache.product-search.max-bytes:33554432}")
+	private long productSearchMaxBytes;
+
+	@Value("${catalog.cache.product-search.ttl-seconds:300}")
+	private long productSearchTtlSeconds;
+
+	@Bean
+	CacheManager cacheManager() {
+		CaffeineCacheManager manager = new CaffeineCacheManager();
+		manager.registerCustomCache(PRODUCTS, Caffeine.newBuilder()
+				.maximumSize(productsMaxSize)
+				.expireAfterWrite(productsTtlSeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build());
+		// o teto é em bytes estimados, não em número de páginas: uma página de size=100 pesa 50x uma de size=2
+		manager.registerCustomCache(PRODUCT_SEARCH, Caffeine.newBuilder()
+				.maximumWeight(productSearchMaxBytes)
+				.weigher(CacheConfig::estimateBytes)
+				.expireAfterWrite(productSearchTtlSeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build());
+		// poucas chaves (uma por geração); o TTL só existe para liberar as gerações antigas
+		manager.registerCustomCache(PRODUCT_FACETS, Caffeine.newBuilder()
+				.maximumSize(16)
+				.expireAfterWrite(productSearchTtlSeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build());
+		// usuários do login por email; o TTL limita por quanto tempo uma mudança feita fora da API fica invisível
+		manager.registerCustomCache(USERS, Caffeine.newBuilder()
+				.maximumSize(usersMaxSize)
+				.expireAfterWrite(usersTtlSeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build());
+		return new TransactionAwareCacheManagerProxy(manager);
+	}
+
+	/**
+	 * Cache de UserDetails compartilhado pelo login (UserService.loadUserByUsername) e pelo
+	 * JwtTokenEnhancer, que antes repetia o findByEmail na mesma requisição de /oauth/token.
+	 */
+	@Bean
+	UserCache userCache(CacheManager cacheManager) throws Exception {
+		return new SpringCacheBasedUserCache(cacheManager.getCache(USERS));
+	}
+
+	// estimativa grosseira (cabeçalhos de objeto + chars em UTF-16), suficiente para o limite
+	private static int estimateBytes(Object key, Object value) {
+		int bytes = 256;
+		if (value instanceof Page<?> page) {
+			for (Object item : page.getContent()) {
+				bytes += (item instanceof ProductDTO dto) ? estimateBytes(dto) : 64;
+			}
+		}
+		return bytes;
+	}
+
+	private static int estimateBytes(ProductDTO dto) {
+		int bytes = 160 + 2 * (length(dto.getName()) + length(dto.getDescription()) + length(dto.getImgUrl()));
+		for (CategoryDTO cat : dto.getCategories()) {
+			bytes += 64 + 2 * length(cat.getName());
+		}
+		return bytes;
+	}
+
+	private static int length(String s) {
+		return (s == null) ? 0 : s.length();
+	}
+}
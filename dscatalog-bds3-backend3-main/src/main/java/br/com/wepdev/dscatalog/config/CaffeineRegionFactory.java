@@ -0,0 +1,141 @@
+package br.com.wepdev.dscatalog.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Cache de segundo nível do Hibernate guardado em caches Caffeine, um por região. Faz o mesmo
+ * papel do hibernate-jcache (que é só um adaptador sobre este mesmo RegionFactoryTemplate), sem
+ * depender de um provedor JCache.
+ *
+ * Política de despejo por região, em spring.jpa.properties:
+ * hibernate.cache.caffeine.[região|default].maximum_size e .expire_after_write_seconds.
+ * A região de timestamps (usada só pelo cache de consultas) nunca expira, como pede o Hibernate.
+ */
+public class CaffeineRegionFactory extends RegionFactoryTemplate {
+
+	private static final long serialVersionUID = 1L;
+
+	static final String PREFIX = "hibernate.cache.caffeine.";
+
+	private static final String DEFAULT = "default";
+
+	private static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+	private static final long DEFAULT_EXPIRE_SECONDS = 3600;
+
+	private final Map<String, Cache<Object, Object>> caches = new ConcurrentHashMap<>();
+
+	private Map<?, ?> configValues = Map.of();
+
+	@Override
+	protected void prepareForUse(SessionFactoryOptions settings, @SuppressWarnings("rawtypes") Map configValues) {
+		this.configValues = configValues;
+	}
+
+	@Override
+	protected void releaseFromUse() {
+		caches.values().forEach(Cache::invalidateAll);
+		caches.clear();
+	}
+
+	@Override
+	protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+			DomainDataRegionBuildingContext buildingContext) {
+		return new CaffeineStorageAccess(cache(regionConfig.getRegionName(), true));
+	}
+
+	@Override
+	protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+			SessionFactoryImplementor sessionFactory) {
+		return new CaffeineStorageAccess(cache(regionName, true));
+	}
+
+	@Override
+	protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+			SessionFactoryImplementor sessionFactory) {
+		return new CaffeineStorageAccess(cache(regionName, false));
+	}
+
+	private Cache<Object, Object> cache(String regionName, boolean evictable) {
+		return caches.computeIfAbsent(regionName, name -> {
+			Caffeine<Object, Object> builder = Caffeine.newBuilder();
+			if (evictable) {
+				builder.maximumSize(setting(name, "maximum_size", DEFAULT_MAXIMUM_SIZE))
+						.expireAfterWrite(Duration.ofSeconds(setting(name, "expire_after_write_seconds", DEFAULT_EXPIRE_SECONDS)));
+			}
+			return builder.build();
+		});
+	}
+
+	// valor da região, senão o default, senão o padrão da classe
+	private long setting(String regionName, String key, long fallback) {
+		Object value = configValues.get(PREFIX + regionName + "." + key);
+		if (value == null) {
+			value = configValues.get(PREFIX + DEFAULT + "." + key);
+		}
+		return (value == null) ? fallback : Long.parseLong(value.toString().trim());
+	}
+
+	private static class CaffeineStorageAccess implements DomainDataStorageAccess {
+
+		private final Cache<Object, Object> cache;
+
+		CaffeineStorageAccess(Cache<Object, Object> cache) {
+			this.cache = cache;
+		}
+
+		@Override
+		public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+			return cache.getIfPresent(key);
+		}
+
+		@Override
+		public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+			cache.put(key, value);
+		}
+
+		@Override
+		public void removeFromCache(Object key, SharedSessionContractImplementor session) {
+			cache.invalidate(key);
+		}
+
+		@Override
+		public void clearCache(SharedSessionContractImplementor session) {
+			cache.invalidateAll();
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return cache.getIfPresent(key) != null;
+		}
+
+		@Override
+		public void evictData() {
+			cache.invalidateAll();
+		}
+
+		@Override
+		public void evictData(Object key) {
+			cache.invalidate(key);
+		}
+
+		@Override
+		public void release() {
+			cache.invalidateAll();
+		}
+	}
+}
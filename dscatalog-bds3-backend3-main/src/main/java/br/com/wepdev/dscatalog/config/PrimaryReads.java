@@ -0,0 +1,70 @@
+package br.com.wepdev.dscatalog.config;
+
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Leituras que abastecem caches compartilhados: totais do CountCache, cópia das categorias,
+ * índice de nomes e cache de login. Logo depois de uma escrita as invalidações rodam, e o próximo
+ * miss de qualquer cliente leria a réplica ainda atrasada e guardaria as linhas antigas sob a
+ * geração nova até o TTL. Por isso, com réplica configurada e dentro da janela de
+ * read-your-writes depois do último commit de escrita, a carga vai para o primário. Fora da janela
+ * ela lê da réplica como as demais leituras. As entradas do {@code @Cacheable} têm o mesmo
+ * tratamento em {@link ReplicaDataSourceConfig}.
+ *
+ * Sem réplica a carga é só chamada diretamente.
+ */
+@Component
+public class PrimaryReads {
+
+	// os dois são null sem réplica
+	private final TransactionTemplate newTransaction;
+
+	private final ReplicaRoutingDataSource routing;
+
+	@Autowired
+	public PrimaryReads(ObjectProvider<PlatformTransactionManager> transactionManager,
+			ObjectProvider<DataSource> dataSource,
+			@Value("${catalog.replica.datasource.jdbc-url:}") String replicaUrl) {
+		this(replicaUrl.isEmpty() ? null : transactionManager.getObject(),
+				replicaUrl.isEmpty() ? null : ReplicaRoutingDataSource.from(dataSource.getObject()));
+	}
+
+	public PrimaryReads(PlatformTransactionManager transactionManager, ReplicaRoutingDataSource routing) {
+		this.routing = routing;
+		if (transactionManager == null) {
+			this.newTransaction = null;
+			return;
+		}
+		this.newTransaction = new TransactionTemplate(transactionManager);
+		this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.newTransaction.setReadOnly(true);
+	}
+
+	public <T> T call(Supplier<T> load) {
+		if (newTransaction == null || !routing.isWithinWriteWindow()) {
+			return load.get();
+		}
+		boolean entered = ReplicaRoutingDataSource.enterPrimaryRead();
+		try {
+			// a transação em curso pode já estar presa a uma conexão da réplica: abre outra
+			if (TransactionSynchronizationManager.isActualTransactionActive()) {
+				return newTransaction.execute(status -> load.get());
+			}
+			return load.get();
+		}
+		finally {
+			ReplicaRoutingDataSource.exitPrimaryRead(entered);
+		}
+	}
+}
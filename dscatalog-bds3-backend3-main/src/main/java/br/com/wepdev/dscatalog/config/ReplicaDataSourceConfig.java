@@ -0,0 +1,94 @@
+package br.com.wepdev.dscatalog.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Réplica de leitura opcional. Só é ativada quando catalog.replica.datasource.jdbc-url está
+ * definido; sem isso o DataSource continua sendo o único pool do spring.datasource. O Flyway e
+ * as transações de escrita usam o primário, e as transações readOnly usam a réplica (veja
+ * {@link ReplicaRoutingDataSource}).
+ *
+ * Propriedades da réplica: catalog.replica.datasource.jdbc-url, .username, .password e as demais
+ * do Hikari (maximum-pool-size etc.); catalog.replica.read-your-writes-seconds define a janela.
+ * Logo depois de uma escrita as cargas de cache compartilhado leem do primário (veja
+ * {@link PrimaryReads}).
+ */
+@Configuration
+@ConditionalOnProperty(name = "catalog.replica.datasource.jdbc-url")
+public class ReplicaDataSourceConfig {
+
+	@Bean(autowireCandidate = false)
+	@ConfigurationProperties("spring.datasource.hikari")
+	HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean(autowireCandidate = false)
+	@ConfigurationProperties("catalog.replica.datasource")
+	HikariDataSource replicaDataSource() {
+		return new HikariDataSource();
+	}
+
+	// os dois pools não são candidatos a injeção: quem pede um DataSource recebe sempre o roteador
+	@Bean
+	@Primary
+	DataSource dataSource(DataSourceProperties properties,
+			@Value("${catalog.replica.read-your-writes-seconds:5}") long readYourWritesSeconds) {
+		HikariDataSource primary = primaryDataSource(properties);
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(Duration.ofSeconds(readYourWritesSeconds));
+		routing.setTargetDataSources(Map.of(
+				ReplicaRoutingDataSource.PRIMARY, primary,
+				ReplicaRoutingDataSource.REPLICA, replicaDataSource()));
+		routing.setDefaultTargetDataSource(primary);
+		routing.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(routing);
+	}
+
+	/*
+	 * Os métodos @Cacheable marcam a carga como leitura de cache quando o valor não está no cache;
+	 * o roteador só a manda para o primário dentro da janela depois do último commit de escrita,
+	 * e fora dela o miss lê da réplica. A ordem fica logo depois do interceptor de cache
+	 * (HIGHEST_PRECEDENCE no CacheConfig), então os acertos não passam por aqui. Como esses
+	 * métodos abrem a própria transação (são chamados pelos controllers), a marca já vale para a
+	 * primeira consulta dela.
+	 */
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	static Advisor cacheLoadsOnPrimary() {
+		MethodInterceptor interceptor = invocation -> {
+			boolean entered = ReplicaRoutingDataSource.enterPrimaryRead();
+			try {
+				return invocation.proceed();
+			}
+			finally {
+				ReplicaRoutingDataSource.exitPrimaryRead(entered);
+			}
+		};
+		DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+				AnnotationMatchingPointcut.forMethodAnnotation(Cacheable.class), interceptor);
+		advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+		return advisor;
+	}
+}
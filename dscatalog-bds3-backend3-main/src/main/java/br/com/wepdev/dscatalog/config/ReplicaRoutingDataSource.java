@@ -0,0 +1,148 @@
+package br.com.wepdev.dscatalog.config;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Manda as transações readOnly para a réplica e o resto para o primário. Precisa ficar atrás
+ * de um LazyConnectionDataSourceProxy: o flag readOnly só é marcado depois que o gerenciador de
+ * transação pede a conexão, e o proxy adia a escolha até o primeiro comando SQL.
+ *
+ * Depois de um commit de escrita, o cliente que escreveu (usuário autenticado ou, sem login, o
+ * IP) continua lendo do primário durante a janela de read-your-writes. Assim ele não vê a
+ * réplica ainda atrasada e não acha que a escrita se perdeu.
+ *
+ * A janela não protege os caches compartilhados: depois da escrita as invalidações rodam e o
+ * próximo miss, de qualquer cliente, leria a réplica. Essas cargas passam por {@link PrimaryReads}
+ * e vão para o primário, mas só durante a mesma janela contada a partir do último commit de
+ * escrita de qualquer cliente. Passada a janela a réplica já alcançou o primário e os misses
+ * voltam a ler dela.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	static final String PRIMARY = "primary";
+
+	static final String REPLICA = "replica";
+
+	// recurso da transação que indica que a marcação de escrita já foi registrada
+	private final Object writeMarker = new Object();
+
+	private final Cache<String, Boolean> recentWriters;
+
+	private final long windowNanos;
+
+	// System.nanoTime() do último commit de escrita; começa com a janela já fechada
+	private volatile long lastWriteAt;
+
+	// marcado por PrimaryReads enquanto a thread carrega algo que vai para um cache compartilhado
+	private static final ThreadLocal<Boolean> primaryRead = new ThreadLocal<>();
+
+	public ReplicaRoutingDataSource(Duration readYourWritesWindow) {
+		this.recentWriters = Caffeine.newBuilder()
+				.expireAfterWrite(readYourWritesWindow)
+				.maximumSize(100_000)
+				.build();
+		this.windowNanos = readYourWritesWindow.toNanos();
+		this.lastWriteAt = System.nanoTime() - windowNanos;
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			markWriterOnCommit();
+			return PRIMARY;
+		}
+		if (isPrimaryRead() && isWithinWriteWindow()) {
+			return PRIMARY;
+		}
+		String client = currentClient();
+		return (client != null && recentWriters.getIfPresent(client) != null) ? PRIMARY : REPLICA;
+	}
+
+	// true enquanto a réplica pode não ter recebido o último commit de escrita
+	boolean isWithinWriteWindow() {
+		return System.nanoTime() - lastWriteAt < windowNanos;
+	}
+
+	static boolean isPrimaryRead() {
+		return primaryRead.get() != null;
+	}
+
+	// devolve false quando a thread já estava marcada, para só a chamada mais externa desmarcar
+	static boolean enterPrimaryRead() {
+		if (isPrimaryRead()) {
+			return false;
+		}
+		primaryRead.set(Boolean.TRUE);
+		return true;
+	}
+
+	static void exitPrimaryRead(boolean entered) {
+		if (entered) {
+			primaryRead.remove();
+		}
+	}
+
+	private void markWriterOnCommit() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()
+				|| TransactionSynchronizationManager.hasResource(writeMarker)) {
+			return;
+		}
+		String client = currentClient();
+		TransactionSynchronizationManager.bindResource(writeMarker, Boolean.TRUE);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				lastWriteAt = System.nanoTime();
+				if (client != null) {
+					recentWriters.put(client, Boolean.TRUE);
+				}
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(writeMarker);
+			}
+		});
+	}
+
+	// null fora de uma requisição (tarefas em segundo plano): sem janela própria, leem da réplica
+	private static String currentClient() {
+		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+		if (auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)) {
+			return "user:" + auth.getName();
+		}
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes instanceof ServletRequestAttributes servlet) {
+			HttpServletRequest request = servlet.getRequest();
+			return "ip:" + request.getRemoteAddr();
+		}
+		return null;
+	}
+
+	// o DataSource da aplicação é o LazyConnectionDataSourceProxy; unwrap chega ao roteador
+	static ReplicaRoutingDataSource from(DataSource dataSource) {
+		try {
+			return dataSource.unwrap(ReplicaRoutingDataSource.class);
+		}
+		catch (SQLException e) {
+			throw new IllegalStateException("DataSource sem roteamento para a réplica", e);
+		}
+	}
+}
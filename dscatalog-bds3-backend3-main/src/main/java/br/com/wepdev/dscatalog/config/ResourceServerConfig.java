@@ -14,6 +14,13 @@ import org.springframework.security.oauth2.config.annotation.web.configuration.E
 import org.springframework.security.oauth2.config.annotation.web.configuration.ResourceServerConfigurerAdapter;
 import org.springframework.security.oauth2.config.annotation.web.configurers.ResourceServerSecurityConfigurer;
 import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.DelegatingRequestMatcherHeaderWriter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -37,6 +44,13 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
 	
 	private static final String[] ADMIN = { "/users/**" };
 
+	// leituras com ETag: respondem Cache-Control: no-cache no controller, sem o no-store padrão
+	private static final RequestMatcher CONDITIONAL_READS = new AndRequestMatcher(
+			new OrRequestMatcher(
+					new AntPathRequestMatcher("/products/**", HttpMethod.GET.name()),
+					new AntPathRequestMatcher("/categories/**", HttpMethod.GET.name())),
+			new NegatedRequestMatcher(new AntPathRequestMatcher("/products/export")));
+
 
     public ResourceServerConfig(Environment env, JwtTokenStore tokenStore) {
         this.env = env;
@@ -58,11 +72,19 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
 		
 		http.authorizeRequests()
 		.antMatchers(PUBLIC).permitAll()
+		// exportação é para parceiros: cada uma segura uma conexão do pool enquanto transmite
+		.antMatchers(HttpMethod.GET, "/products/export").authenticated()
 		.antMatchers(HttpMethod.GET, OPERATOR_OR_ADMIN).permitAll()
+		.antMatchers("/products/prices").hasRole("ADMIN")
 		.antMatchers(OPERATOR_OR_ADMIN).hasAnyRole("OPERATOR", "ADMIN")
 		.antMatchers(ADMIN).hasRole("ADMIN")
 		.anyRequest().authenticated();
 		
+		// com no-store o navegador não guarda a resposta e nunca manda If-None-Match
+		http.headers().cacheControl().disable()
+		.addHeaderWriter(new DelegatingRequestMatcherHeaderWriter(
+				new NegatedRequestMatcher(CONDITIONAL_READS), new CacheControlHeadersWriter()));
+		
 		http.cors().configurationSource(corsConfigurationSource());
 	}
 	
@@ -75,7 +97,8 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
 	    corsConfig.setAllowedOriginPatterns(Arrays.asList(origins));
 	    corsConfig.setAllowedMethods(Arrays.asList("POST", "GET", "PUT", "DELETE", "PATCH"));
 	    corsConfig.setAllowCredentials(true);
-	    corsConfig.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type"));
+	    corsConfig.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "If-None-Match"));
+	    corsConfig.setExposedHeaders(Arrays.asList("ETag"));
 	 
 	    UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
 	    source.registerCorsConfiguration("/**", corsConfig);
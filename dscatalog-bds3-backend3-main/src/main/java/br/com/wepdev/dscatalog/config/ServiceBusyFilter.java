@@ -0,0 +1,69 @@
+package br.com.wepdev.dscatalog.config;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.wepdev.dscatalog.controller.exceptions.StandardError;
+import br.com.wepdev.dscatalog.services.exceptions.ServiceBusyException;
+
+/**
+ * Transforma em 503 a ServiceBusyException lançada fora do MVC, onde o ControllerAdvice não
+ * alcança: a conferência do client secret no /oauth/token acontece no BasicAuthenticationFilter,
+ * e sem isto a saturação do pool de hash viraria 500. Fica antes da cadeia do Spring Security.
+ */
+public class ServiceBusyFilter extends OncePerRequestFilter {
+
+	private final ObjectMapper objectMapper;
+
+	public ServiceBusyFilter(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		try {
+			chain.doFilter(request, response);
+		}
+		catch (ServletException | RuntimeException e) {
+			ServiceBusyException busy = findBusy(e);
+			if (busy == null || response.isCommitted()) {
+				throw e;
+			}
+			HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+			StandardError err = new StandardError();
+			err.setTimestamp(Instant.now());
+			err.setStatus(status.value());
+			err.setError("Serviço indisponível");
+			err.setMessage(busy.getMessage());
+			err.setPath(request.getRequestURI());
+			response.resetBuffer();
+			response.setStatus(status.value());
+			response.setHeader(HttpHeaders.RETRY_AFTER, ServiceBusyException.RETRY_AFTER_SECONDS);
+			response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+			objectMapper.writeValue(response.getOutputStream(), err);
+		}
+	}
+
+	// a exceção pode chegar embrulhada (NestedServletException, InternalAuthenticationServiceException)
+	static ServiceBusyException findBusy(Throwable e) {
+		for (Throwable t = e; t != null; t = (t.getCause() == t) ? null : t.getCause()) {
+			if (t instanceof ServiceBusyException busy) {
+				return busy;
+			}
+		}
+		return null;
+	}
+}
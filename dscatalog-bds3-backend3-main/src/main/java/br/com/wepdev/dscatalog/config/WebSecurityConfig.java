@@ -1,6 +1,8 @@
 package br.com.wepdev.dscatalog.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,6 +12,8 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 @Configuration
 @EnableWebSecurity
 public class WebSecurityConfig {
@@ -17,9 +21,25 @@ public class WebSecurityConfig {
 	@Value("${jwt.secret}")
 	private String jwtSecret;
 
+	/*
+	 * BCrypt em pool próprio: catalog.password.threads (0 = metade dos núcleos, para sobrar CPU às
+	 * leituras do catálogo), catalog.password.queue-capacity e catalog.password.timeout-ms. Com a
+	 * fila cheia ou o timeout estourado o login responde 503.
+	 */
+	@Bean
+	BoundedPasswordEncoder passwordEncoder(@Value("${catalog.password.threads:0}") int threads,
+			@Value("${catalog.password.queue-capacity:64}") int queueCapacity,
+			@Value("${catalog.password.timeout-ms:2000}") long timeoutMillis) {
+		int poolSize = (threads > 0) ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), poolSize, queueCapacity, timeoutMillis);
+	}
+
+	// antes da cadeia do Spring Security, onde o client secret é conferido
 	@Bean
-	BCryptPasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	FilterRegistrationBean<ServiceBusyFilter> serviceBusyFilter(ObjectMapper objectMapper) {
+		FilterRegistrationBean<ServiceBusyFilter> registration = new FilterRegistrationBean<>(new ServiceBusyFilter(objectMapper));
+		registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+		return registration;
 	}
 
 	@Bean
@@ -2,14 +2,22 @@ package br.com.wepdev.dscatalog.controller;
 
 import java.net.URI;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.wepdev.dscatalog.components.CatalogGeneration;
 import br.com.wepdev.dscatalog.dto.CategoryDTO;
 import br.com.wepdev.dscatalog.services.CategoryService;
+import br.com.wepdev.dscatalog.services.CountMode;
 
 @RestController
 @RequestMapping(value = "/categories")
@@ -18,22 +26,52 @@ public class CategoryController {
 
 	private final CategoryService service;
 
-    public CategoryController(CategoryService service) {
+	private final ObjectMapper objectMapper;
+
+	private final CatalogGeneration catalogGeneration;
+
+    public CategoryController(CategoryService service, ObjectMapper objectMapper, CatalogGeneration catalogGeneration) {
         this.service = service;
+        this.objectMapper = objectMapper;
+        this.catalogGeneration = catalogGeneration;
     }
 
     @GetMapping
-	public ResponseEntity<Page<CategoryDTO>> findAll(Pageable pageable) {
+	public ResponseEntity<Slice<CategoryDTO>> findAll(
+			@RequestParam(value = "count", defaultValue = "exact") String count,
+			Pageable pageable, WebRequest request) {
 
-		Page<CategoryDTO> list = service.findAllPaged(pageable);		
-		return ResponseEntity.ok().body(list);
+		String etag = catalogGeneration.etag();
+		if (request.checkNotModified(etag)) {
+			return null;
+		}
+		CountMode mode = CountMode.of(count);
+		Slice<CategoryDTO> list = (mode == CountMode.EXACT)
+				? service.findAllPaged(pageable)
+				: service.findAllSliced(pageable, mode == CountMode.ESTIMATED);
+		return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(list);
+	}
+
+	// lista completa para o menu, já serializada: só é refeita quando alguma categoria muda
+	@GetMapping(value = "/all")
+	public ResponseEntity<byte[]> findAllUnpaged(WebRequest request) throws JsonProcessingException {
+		String etag = catalogGeneration.etag();
+		if (request.checkNotModified(etag)) {
+			return null;
+		}
+		byte[] body = service.findAllSnapshot().toJson(objectMapper);
+		return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).contentType(MediaType.APPLICATION_JSON).body(body);
 	}
 
 	@GetMapping(value = "/{id}")
-	public ResponseEntity<CategoryDTO> findById(@PathVariable Long id) {
+	public ResponseEntity<CategoryDTO> findById(@PathVariable Long id, WebRequest request) {
 
+		String etag = catalogGeneration.etag();
+		if (request.checkNotModified(etag)) {
+			return null;
+		}
 		CategoryDTO dto = service.findById(id);
-		return ResponseEntity.ok().body(dto);
+		return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(dto);
 	}
 	
 	@PostMapping
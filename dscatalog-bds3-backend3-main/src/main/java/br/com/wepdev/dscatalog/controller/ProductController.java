@@ -1,18 +1,52 @@
 package br.com.wepdev.dscatalog.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
 
 import javax.validation.Valid;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.wepdev.dscatalog.components.CatalogGeneration;
+import br.com.wepdev.dscatalog.dto.CategoryFacetDTO;
+import br.com.wepdev.dscatalog.dto.CursorPageDTO;
+import br.com.wepdev.dscatalog.dto.ImportReportDTO;
+import br.com.wepdev.dscatalog.dto.PriceAdjustmentDTO;
+import br.com.wepdev.dscatalog.dto.PriceAdjustmentResultDTO;
+import br.com.wepdev.dscatalog.dto.PriceBucketDTO;
+import br.com.wepdev.dscatalog.dto.ProductBatchDTO;
 import br.com.wepdev.dscatalog.dto.ProductDTO;
+import br.com.wepdev.dscatalog.dto.ProductPatchDTO;
+import br.com.wepdev.dscatalog.dto.ProductSuggestionDTO;
+import br.com.wepdev.dscatalog.dto.ProductSummaryDTO;
+import br.com.wepdev.dscatalog.services.CountMode;
+import br.com.wepdev.dscatalog.services.ExportFormat;
+import br.com.wepdev.dscatalog.services.FieldSet;
+import br.com.wepdev.dscatalog.services.ProductExportService;
+import br.com.wepdev.dscatalog.services.ProductImportService;
 import br.com.wepdev.dscatalog.services.ProductService;
 
+/**
+ * As leituras respondem com o ETag da geração do catálogo ({@link CatalogGeneration#etag()}) e
+ * devolvem 304 quando o If-None-Match bate, antes de chamar o service. O Cache-Control: no-cache
+ * deixa o navegador guardar a resposta e revalidar a cada uso; o no-store padrão do Spring
+ * Security fica desligado nessas rotas (ResourceServerConfig), senão o If-None-Match nunca viria.
+ */
 @RestController
 @RequestMapping(value = "/products")
 public class ProductController {
@@ -20,24 +54,202 @@ public class ProductController {
 
 	private final ProductService service;
 
-    public ProductController(ProductService service) {
+	private final ProductExportService exportService;
+
+	private final ProductImportService importService;
+
+	private final CatalogGeneration catalogGeneration;
+
+	private final ObjectMapper objectMapper;
+
+    public ProductController(ProductService service, ProductExportService exportService,
+            ProductImportService importService, CatalogGeneration catalogGeneration, ObjectMapper objectMapper) {
         this.service = service;
+        this.exportService = exportService;
+        this.importService = importService;
+        this.catalogGeneration = catalogGeneration;
+        this.objectMapper = objectMapper;
     }
 
 	@GetMapping
-	public ResponseEntity<Page<ProductDTO>> findAll(
+	public ResponseEntity<Slice<ProductDTO>> findAll(
 			@RequestParam(value = "categoryId", defaultValue = "0") Long categoryId,
 			@RequestParam(value = "name", defaultValue = "") String name,
-			Pageable pageable) {
+			@RequestParam(value = "minPrice", required = false) Double minPrice,
+			@RequestParam(value = "maxPrice", required = false) Double maxPrice,
+			@RequestParam(value = "count", defaultValue = "exact") String count,
+			Pageable pageable, WebRequest request) {
 
-		Page<ProductDTO> list = service.findAllPaged(categoryId, name.trim(), pageable);
-		return ResponseEntity.ok().body(list);
+		String etag = catalogGeneration.etag();
+		if (request.checkNotModified(etag)) {
+			return null;
+		}
+		CountMode mode = CountMode.of(count);
+		Slice<ProductDTO> list = (mode == CountMode.EXACT)
+				? service.findAllPaged(categoryId, name.trim(), minPrice, maxPrice, pageable)
+				: service.findAllSliced(categoryId, name.trim(), minPrice, maxPrice, pageable, mode == CountMode.ESTIMATED);
+		return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(list);
+	}
+
+	// ?fields=name,price devolve só esses campos (e o id); as colunas não pedidas nem são consultadas
+	@GetMapping(params = {"fields", "!cursor", "!ids"})
+	public ResponseEntity<Slice<JsonNode>> findAllFields(
+			@RequestParam(value = "categoryId", defaultValue = "0") Long categoryId,
+			@RequestParam(value = "name", defaultValue = "") String name,
+			@RequestParam(value = "minPrice", required = false) Double minPrice,
+			@RequestParam(value = "maxPrice", required = false) Double maxPrice,
+			@RequestParam(value = "count", defaultValue = "exact") String count,
+			@RequestParam(value = "fields") String fields,
+			Pageable pageable, WebRequest request) {
+
+		FieldSet fieldSet = FieldSet.of(fields, ProductService.FIELDS);
+		CountMode mode = CountMode.of(count);
+		String etag = catalogGeneration.etag();
+		if (request.checkNotModified(etag)) {
+			return null;
+		}
+		Slice<ProductDTO> list = service.findAllFields(categoryId, name.trim(), minPrice, maxPrice, fieldSet, mode,
+				pageable);
+		return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(list.map(dto -> fieldSet.select(objectMapper, dto)));
+	}
+
+	@GetMapping(value = "/summary")
+	public ResponseEntity<Page<ProductSummaryDTO>> findAllSummaries(
+			@RequestParam(value = "categoryId", defaultValue = "0") Long categoryId,
+			@RequestParam(value = "name", defaultValue = "") String name,
+			Pageable pageable, WebRequest request) {
+
+		String etag = catalogGeneration.etag();
+		if (request.checkNotModified(etag)) {
+			return null;
+		}
+		Page<ProductSummaryDTO> list = service.findAllSummaries(categoryId, name.trim(), pageable);
+		return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(list);
+	}
+
+	@GetMapping(value = "/facets")
+	public ResponseEntity<List<CategoryFacetDTO>> findCategoryFacets(
+			@RequestParam(value = "name", defaultValue = "") String name,
+			WebRequest request) {
+
+		String etag = catalogGeneration.etag();
+		if (request.checkNotModified(etag)) {
+			return null;
+		}
+		List<CategoryFacetDTO> facets = service.findCategoryFacets(name.trim());
+		return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(facets);
+	}
+
+	@GetMapping(value = "/suggest")
+	public ResponseEntity<List<ProductSuggestionDTO>> suggest(
+			@RequestParam(value = "q", defaultValue = "") String q,
+			@RequestParam(value = "size", defaultValue = "10") Integer size,
+			WebRequest request) {
+
+		String etag = catalogGeneration.etag();
+		if (request.checkNotModified(etag)) {
+			return null;
+		}
+		List<ProductSuggestionDTO> suggestions = service.suggest(q, size);
+		return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(suggestions);
+	}
+
+	@GetMapping(value = "/price-histogram")
+	public ResponseEntity<List<PriceBucketDTO>> findPriceHistogram(
+			@RequestParam(value = "categoryId", defaultValue = "0") Long categoryId,
+			@RequestParam(value = "name", defaultValue = "") String name,
+			@RequestParam(value = "minPrice", required = false) Double minPrice,
+			@RequestParam(value = "maxPrice", required = false) Double maxPrice,
+			@RequestParam(value = "buckets", defaultValue = "10") Integer buckets,
+			WebRequest request) {
+
+		String etag = catalogGeneration.etag();
+		if (request.checkNotModified(etag)) {
+			return null;
+		}
+		List<PriceBucketDTO> histogram = service.findPriceHistogram(categoryId, name.trim(), minPrice, maxPrice, buckets);
+		return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(histogram);
+	}
+
+	/*
+	 * Modo cursor: ?cursor= inicia a navegação e ?cursor=<next> continua de onde parou. A ordem é
+	 * ?orderBy=name|id, e não ?sort=, para não confundir com o sort=campo,direção do Spring Data.
+	 */
+	@GetMapping(params = "cursor")
+	public ResponseEntity<CursorPageDTO<ProductDTO>> findAllByCursor(
+			@RequestParam(value = "categoryId", defaultValue = "0") Long categoryId,
+			@RequestParam(value = "name", defaultValue = "") String name,
+			@RequestParam(value = "minPrice", required = false) Double minPrice,
+			@RequestParam(value = "maxPrice", required = false) Double maxPrice,
+			@RequestParam(value = "cursor") String cursor,
+			@RequestParam(value = "orderBy", defaultValue = "name") String orderBy,
+			@RequestParam(value = "size", defaultValue = "20") Integer size,
+			WebRequest request) {
+
+		String etag = catalogGeneration.etag();
+		if (request.checkNotModified(etag)) {
+			return null;
+		}
+		CursorPageDTO<ProductDTO> list = service.findAllByCursor(categoryId, name.trim(), minPrice, maxPrice,
+				cursor, orderBy, size);
+		return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(list);
+	}
+
+	// ?ids=1,2,3 busca os produtos em lote, na ordem pedida; os ids inexistentes vêm em missing
+	@GetMapping(params = "ids")
+	public ResponseEntity<ProductBatchDTO> findByIds(@RequestParam(value = "ids") List<Long> ids, WebRequest request) {
+		String etag = catalogGeneration.etag();
+		if (request.checkNotModified(etag)) {
+			return null;
+		}
+		ProductBatchDTO batch = service.findByIds(ids);
+		return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(batch);
+	}
+
+	// catálogo inteiro em uma resposta só, escrito enquanto as linhas chegam do banco
+	@GetMapping(value = "/export")
+	public ResponseEntity<StreamingResponseBody> export(
+			@RequestParam(value = "categoryId", defaultValue = "0") Long categoryId,
+			@RequestParam(value = "name", defaultValue = "") String name,
+			@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+
+		ExportFormat exportFormat = ExportFormat.of(format);
+		// acima do limite a resposta é 503 aqui, antes de começar o stream
+		exportService.acquire();
+		StreamingResponseBody body = out -> {
+			try {
+				exportService.export(categoryId, name.trim(), exportFormat, out);
+			}
+			finally {
+				exportService.release();
+			}
+		};
+		return ResponseEntity.ok()
+				.contentType(exportFormat.getMediaType())
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=products." + exportFormat.getExtension())
+				.body(body);
 	}
 
 	@GetMapping(value = "/{id}")
-	public ResponseEntity<ProductDTO> findById(@PathVariable Long id) {
+	public ResponseEntity<ProductDTO> findById(@PathVariable Long id, WebRequest request) {
+		String etag = catalogGeneration.etag();
+		if (request.checkNotModified(etag)) {
+			return null;
+		}
 		ProductDTO dto = service.findById(id);
-		return ResponseEntity.ok().body(dto);
+		return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(dto);
+	}
+
+	@GetMapping(value = "/{id}", params = "fields")
+	public ResponseEntity<JsonNode> findById(@PathVariable Long id, @RequestParam(value = "fields") String fields,
+			WebRequest request) {
+		FieldSet fieldSet = FieldSet.of(fields, ProductService.FIELDS);
+		String etag = catalogGeneration.etag();
+		if (request.checkNotModified(etag)) {
+			return null;
+		}
+		ProductDTO dto = service.findById(id, fieldSet);
+		return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(fieldSet.select(objectMapper, dto));
 	}
 	
 	@PostMapping
@@ -48,12 +260,35 @@ public class ProductController {
 		return ResponseEntity.created(uri).body(dto);
 	}
 
+	// importação em massa: array JSON, NDJSON ou CSV; responde com o relatório por linha
+	@PostMapping(value = "/import", consumes = { MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson", "text/csv" })
+	public ResponseEntity<ImportReportDTO> importProducts(InputStream body,
+			@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) throws IOException {
+
+		ExportFormat format = ExportFormat.CSV.getMediaType().isCompatibleWith(contentType)
+				? ExportFormat.CSV : ExportFormat.NDJSON;
+		ImportReportDTO report = importService.importProducts(body, format);
+		return ResponseEntity.ok().body(report);
+	}
+
+	@PutMapping(value = "/prices")
+	public ResponseEntity<PriceAdjustmentResultDTO> adjustPrices(@Valid @RequestBody PriceAdjustmentDTO dto) {
+		PriceAdjustmentResultDTO result = service.adjustPrices(dto);
+		return ResponseEntity.ok().body(result);
+	}
+
 	@PutMapping(value = "/{id}")
 	public ResponseEntity<ProductDTO> update(@PathVariable Long id, @Valid @RequestBody ProductDTO dto) {
 		dto = service.update(id, dto);
 		return ResponseEntity.ok().body(dto);
 	}
 
+	@PatchMapping(value = "/{id}")
+	public ResponseEntity<ProductDTO> patch(@PathVariable Long id, @Valid @RequestBody ProductPatchDTO dto) {
+		ProductDTO result = service.patch(id, dto);
+		return ResponseEntity.ok().body(result);
+	}
+
 	@DeleteMapping(value = "/{id}")
 	public ResponseEntity<Void> delete(@PathVariable Long id) {
 		service.delete(id);
@@ -4,8 +4,8 @@ import java.net.URI;
 
 import javax.validation.Valid;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,12 +14,18 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import br.com.wepdev.dscatalog.dto.UserDTO;
 import br.com.wepdev.dscatalog.dto.UserInsertDTO;
 import br.com.wepdev.dscatalog.dto.UserUpdateDTO;
+import br.com.wepdev.dscatalog.services.CountMode;
+import br.com.wepdev.dscatalog.services.FieldSet;
 import br.com.wepdev.dscatalog.services.UserService;
 
 @RestController
@@ -29,21 +35,47 @@ public class UserController {
 
 	private final UserService service;
 
-    public UserController(UserService service) {
+	private final ObjectMapper objectMapper;
+
+    public UserController(UserService service, ObjectMapper objectMapper) {
         this.service = service;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-	public ResponseEntity<Page<UserDTO>> findAll(Pageable pageable) {
-		Page<UserDTO> list = service.findAllPaged(pageable);		
+	public ResponseEntity<Slice<UserDTO>> findAll(
+			@RequestParam(value = "count", defaultValue = "exact") String count,
+			Pageable pageable) {
+		CountMode mode = CountMode.of(count);
+		Slice<UserDTO> list = (mode == CountMode.EXACT)
+				? service.findAllPaged(pageable)
+				: service.findAllSliced(pageable, mode == CountMode.ESTIMATED);
 		return ResponseEntity.ok().body(list);
 	}
 
+	// ?fields=firstName,email devolve só esses campos, mais o id
+	@GetMapping(params = "fields")
+	public ResponseEntity<Slice<JsonNode>> findAllFields(
+			@RequestParam(value = "fields") String fields,
+			@RequestParam(value = "count", defaultValue = "exact") String count,
+			Pageable pageable) {
+		FieldSet fieldSet = FieldSet.of(fields, UserService.FIELDS);
+		Slice<UserDTO> list = service.findAllFields(fieldSet, CountMode.of(count), pageable);
+		return ResponseEntity.ok().body(list.map(dto -> fieldSet.select(objectMapper, dto)));
+	}
+
 	@GetMapping(value = "/{id}")
 	public ResponseEntity<UserDTO> findById(@PathVariable Long id) {
 		UserDTO dto = service.findById(id);
 		return ResponseEntity.ok().body(dto);
 	}
+
+	@GetMapping(value = "/{id}", params = "fields")
+	public ResponseEntity<JsonNode> findById(@PathVariable Long id, @RequestParam(value = "fields") String fields) {
+		FieldSet fieldSet = FieldSet.of(fields, UserService.FIELDS);
+		UserDTO dto = service.findById(id, fieldSet);
+		return ResponseEntity.ok().body(fieldSet.select(objectMapper, dto));
+	}
 	
 	@PostMapping
 	public ResponseEntity<UserDTO> insert(@RequestBody @Valid UserInsertDTO dto) {
@@ -4,6 +4,7 @@ import java.time.Instant;
 
 import javax.servlet.http.HttpServletRequest;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -12,7 +13,10 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import br.com.wepdev.dscatalog.services.exceptions.DatabaseException;
+import br.com.wepdev.dscatalog.services.exceptions.InvalidParameterException;
+import br.com.wepdev.dscatalog.services.exceptions.InvalidReferenceException;
 import br.com.wepdev.dscatalog.services.exceptions.ResourceNotFoundException;
+import br.com.wepdev.dscatalog.services.exceptions.ServiceBusyException;
 
 @ControllerAdvice
 public class ResourceExceptionHandler {
@@ -41,6 +45,47 @@ public class ResourceExceptionHandler {
 		return ResponseEntity.status(status).body(err);
 	}	
 	
+	@ExceptionHandler(InvalidParameterException.class)
+	public ResponseEntity<StandardError> invalidParameter(InvalidParameterException e, HttpServletRequest request) {
+		HttpStatus status = HttpStatus.BAD_REQUEST;
+		StandardError err = new StandardError();
+		err.setTimestamp(Instant.now());
+		err.setStatus(status.value());
+		err.setError("Parâmetro inválido");
+		err.setMessage(e.getMessage());
+		err.setPath(request.getRequestURI());
+		return ResponseEntity.status(status).body(err);
+	}	
+	
+	@ExceptionHandler(InvalidReferenceException.class)
+	public ResponseEntity<ValidationError> invalidReference(InvalidReferenceException e, HttpServletRequest request) {
+		HttpStatus status = HttpStatus.UNPROCESSABLE_ENTITY;
+		ValidationError err = new ValidationError();
+		err.setTimestamp(Instant.now());
+		err.setStatus(status.value());
+		err.setError("Erro de validação");
+		err.setMessage(e.getMessage());
+		err.setPath(request.getRequestURI());
+		
+		for (Long id : e.getIds()) {
+			err.addError(e.getField(), "Id não encontrado: " + id);
+		}
+		
+		return ResponseEntity.status(status).body(err);
+	}	
+	
+	@ExceptionHandler(ServiceBusyException.class)
+	public ResponseEntity<StandardError> serviceBusy(ServiceBusyException e, HttpServletRequest request) {
+		HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+		StandardError err = new StandardError();
+		err.setTimestamp(Instant.now());
+		err.setStatus(status.value());
+		err.setError("Serviço indisponível");
+		err.setMessage(e.getMessage());
+		err.setPath(request.getRequestURI());
+		return ResponseEntity.status(status).header(HttpHeaders.RETRY_AFTER, ServiceBusyException.RETRY_AFTER_SECONDS).body(err);
+	}	
+	
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	public ResponseEntity<ValidationError> validation(MethodArgumentNotValidException e, HttpServletRequest request) {
 		HttpStatus status = HttpStatus.UNPROCESSABLE_ENTITY;
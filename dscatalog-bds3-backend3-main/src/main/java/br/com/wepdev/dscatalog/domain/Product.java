@@ -14,16 +14,22 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
 @Table(name = "tb_product")
 public class Product implements Serializable {
 	@Serial
 	private static final long serialVersionUID = 1L;
 
+	// sequência pooled (V7): o Hibernate reserva 50 ids por nextval e consegue agrupar os inserts em lote
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_product")
+	@SequenceGenerator(name = "seq_product", sequenceName = "seq_product", allocationSize = 50)
 	private Long id;
 	private String name;
 	
@@ -35,7 +41,9 @@ public class Product implements Serializable {
 	@Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
 	private Instant date;
 	
+	// guarda só os ids das categorias; as entidades vêm da região "category"
 	@ManyToMany
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product.categories")
 	@JoinTable(name = "tb_product_category",
 		joinColumns = @JoinColumn(name = "product_id"),
 		inverseJoinColumns = @JoinColumn(name = "category_id"))	
@@ -0,0 +1,29 @@
+package br.com.wepdev.dscatalog.dto;
+
+import java.io.Serial;
+
+/**
+ * Quantidade de produtos de uma categoria que atendem à busca, para a barra lateral da vitrine.
+ */
+public class CategoryFacetDTO extends CategoryDTO {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private long count;
+
+	public CategoryFacetDTO() {
+	}
+
+	public CategoryFacetDTO(Long id, String name, long count) {
+		super(id, name);
+		this.count = count;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public void setCount(long count) {
+		this.count = count;
+	}
+}
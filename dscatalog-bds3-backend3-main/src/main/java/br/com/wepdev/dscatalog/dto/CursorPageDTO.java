@@ -0,0 +1,40 @@
+package br.com.wepdev.dscatalog.dto;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+public class CursorPageDTO<T> implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private List<T> content;
+	private String next;
+
+	public CursorPageDTO() {
+	}
+
+	public CursorPageDTO(List<T> content, String next) {
+		this.content = content;
+		this.next = next;
+	}
+
+	public List<T> getContent() {
+		return content;
+	}
+
+	public void setContent(List<T> content) {
+		this.content = content;
+	}
+
+	/**
+	 * Token opaco para a próxima página; nulo quando não há mais resultados.
+	 */
+	public String getNext() {
+		return next;
+	}
+
+	public void setNext(String next) {
+		this.next = next;
+	}
+}
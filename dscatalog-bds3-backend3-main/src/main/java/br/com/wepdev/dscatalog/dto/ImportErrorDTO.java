@@ -0,0 +1,37 @@
+package br.com.wepdev.dscatalog.dto;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Erro de uma linha da importação. row começa em 1 e conta só os registros (sem o cabeçalho do CSV).
+ */
+public class ImportErrorDTO implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private long row;
+	private String field;
+	private String message;
+
+	public ImportErrorDTO() {
+	}
+
+	public ImportErrorDTO(long row, String field, String message) {
+		this.row = row;
+		this.field = field;
+		this.message = message;
+	}
+
+	public long getRow() {
+		return row;
+	}
+
+	public String getField() {
+		return field;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+}
@@ -0,0 +1,48 @@
+package br.com.wepdev.dscatalog.dto;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado da importação em massa. A lista de erros é limitada; failed traz o total de linhas
+ * rejeitadas mesmo quando nem todas aparecem em errors.
+ */
+public class ImportReportDTO implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private long total;
+	private long imported;
+	private long failed;
+	private List<ImportErrorDTO> errors = new ArrayList<>();
+
+	public long getTotal() {
+		return total;
+	}
+
+	public void setTotal(long total) {
+		this.total = total;
+	}
+
+	public long getImported() {
+		return imported;
+	}
+
+	public void setImported(long imported) {
+		this.imported = imported;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	public void setFailed(long failed) {
+		this.failed = failed;
+	}
+
+	public List<ImportErrorDTO> getErrors() {
+		return errors;
+	}
+}
@@ -0,0 +1,66 @@
+package br.com.wepdev.dscatalog.dto;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Reajuste de preço em massa: percent (ex.: 10 = +10%, -5 = -5%) ou amount (valor fixo somado ao
+ * preço), nunca os dois. name é opcional e filtra como na listagem de produtos.
+ */
+public class PriceAdjustmentDTO implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	@NotNull(message = "Campo requerido")
+	private Long categoryId;
+
+	private String name;
+
+	private Double percent;
+
+	private Double amount;
+
+	public PriceAdjustmentDTO() {
+	}
+
+	public PriceAdjustmentDTO(Long categoryId, String name, Double percent, Double amount) {
+		this.categoryId = categoryId;
+		this.name = name;
+		this.percent = percent;
+		this.amount = amount;
+	}
+
+	public Long getCategoryId() {
+		return categoryId;
+	}
+
+	public void setCategoryId(Long categoryId) {
+		this.categoryId = categoryId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Double getPercent() {
+		return percent;
+	}
+
+	public void setPercent(Double percent) {
+		this.percent = percent;
+	}
+
+	public Double getAmount() {
+		return amount;
+	}
+
+	public void setAmount(Double amount) {
+		this.amount = amount;
+	}
+}
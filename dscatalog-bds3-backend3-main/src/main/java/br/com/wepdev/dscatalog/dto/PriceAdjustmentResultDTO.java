@@ -0,0 +1,22 @@
+package br.com.wepdev.dscatalog.dto;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+public class PriceAdjustmentResultDTO implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private int updated;
+
+	public PriceAdjustmentResultDTO() {
+	}
+
+	public PriceAdjustmentResultDTO(int updated) {
+		this.updated = updated;
+	}
+
+	public int getUpdated() {
+		return updated;
+	}
+}
@@ -0,0 +1,37 @@
+package br.com.wepdev.dscatalog.dto;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Faixa do histograma de preços: from inclusivo, to exclusivo (a última faixa inclui o to).
+ */
+public class PriceBucketDTO implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private double from;
+	private double to;
+	private long count;
+
+	public PriceBucketDTO() {
+	}
+
+	public PriceBucketDTO(double from, double to, long count) {
+		this.from = from;
+		this.to = to;
+		this.count = count;
+	}
+
+	public double getFrom() {
+		return from;
+	}
+
+	public double getTo() {
+		return to;
+	}
+
+	public long getCount() {
+		return count;
+	}
+}
@@ -0,0 +1,35 @@
+package br.com.wepdev.dscatalog.dto;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+public class ProductBatchDTO implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private List<ProductDTO> content;
+	private List<Long> missing;
+
+	public ProductBatchDTO() {
+	}
+
+	public ProductBatchDTO(List<ProductDTO> content, List<Long> missing) {
+		this.content = content;
+		this.missing = missing;
+	}
+
+	/**
+	 * Produtos encontrados, na ordem em que os ids foram pedidos.
+	 */
+	public List<ProductDTO> getContent() {
+		return content;
+	}
+
+	/**
+	 * Ids pedidos que não existem (ou foram excluídos).
+	 */
+	public List<Long> getMissing() {
+		return missing;
+	}
+}
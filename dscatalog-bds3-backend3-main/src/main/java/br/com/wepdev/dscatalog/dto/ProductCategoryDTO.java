@@ -0,0 +1,30 @@
+package br.com.wepdev.dscatalog.dto;
+
+import java.io.Serial;
+
+/**
+ * Linha da projeção produto x categoria usada para preencher as categorias das listagens
+ * enxutas sem carregar as entidades.
+ */
+public class ProductCategoryDTO extends CategoryDTO {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private Long productId;
+
+	public ProductCategoryDTO() {
+	}
+
+	public ProductCategoryDTO(Long productId, Long id, String name) {
+		super(id, name);
+		this.productId = productId;
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public void setProductId(Long productId) {
+		this.productId = productId;
+	}
+}
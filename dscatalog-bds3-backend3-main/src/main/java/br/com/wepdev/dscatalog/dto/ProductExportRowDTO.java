@@ -0,0 +1,63 @@
+package br.com.wepdev.dscatalog.dto;
+
+import java.time.Instant;
+
+/**
+ * Linha da exportação: um produto com uma das suas categorias (ou sem categoria). Como é uma
+ * projeção, o cursor da exportação não deixa entidades no contexto de persistência.
+ */
+public class ProductExportRowDTO {
+
+	private final Long id;
+	private final String name;
+	private final String description;
+	private final Double price;
+	private final String imgUrl;
+	private final Instant date;
+	private final Long categoryId;
+	private final String categoryName;
+
+	public ProductExportRowDTO(Long id, String name, String description, Double price, String imgUrl, Instant date,
+			Long categoryId, String categoryName) {
+		this.id = id;
+		this.name = name;
+		this.description = description;
+		this.price = price;
+		this.imgUrl = imgUrl;
+		this.date = date;
+		this.categoryId = categoryId;
+		this.categoryName = categoryName;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public Double getPrice() {
+		return price;
+	}
+
+	public String getImgUrl() {
+		return imgUrl;
+	}
+
+	public Instant getDate() {
+		return date;
+	}
+
+	public Long getCategoryId() {
+		return categoryId;
+	}
+
+	public String getCategoryName() {
+		return categoryName;
+	}
+}
@@ -0,0 +1,76 @@
+package br.com.wepdev.dscatalog.dto;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.validation.constraints.PastOrPresent;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+
+/**
+ * Corpo do PATCH /products/{id}: só os campos simples do produto. Campo ausente (null) fica como
+ * está; as categorias não fazem parte e só mudam pelo PUT.
+ */
+public class ProductPatchDTO implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	@Size(min = 5, max = 60, message = "Deve ter entre 5 e 60 caracteres")
+	private String name;
+
+	@Pattern(regexp = "(?s).*\\S.*", message = "Campo requerido")
+	private String description;
+
+	@Positive(message = "Preço deve ser um valor positivo")
+	private Double price;
+
+	private String imgUrl;
+
+	@PastOrPresent(message = "A data do produto não pode ser futura")
+	private Instant date;
+
+	public ProductPatchDTO() {
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public void setDescription(String description) {
+		this.description = description;
+	}
+
+	public Double getPrice() {
+		return price;
+	}
+
+	public void setPrice(Double price) {
+		this.price = price;
+	}
+
+	public String getImgUrl() {
+		return imgUrl;
+	}
+
+	public void setImgUrl(String imgUrl) {
+		this.imgUrl = imgUrl;
+	}
+
+	public Instant getDate() {
+		return date;
+	}
+
+	public void setDate(Instant date) {
+		this.date = date;
+	}
+}
@@ -0,0 +1,28 @@
+package br.com.wepdev.dscatalog.dto;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+public class ProductSuggestionDTO implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private Long id;
+	private String name;
+
+	public ProductSuggestionDTO() {
+	}
+
+	public ProductSuggestionDTO(Long id, String name) {
+		this.id = id;
+		this.name = name;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+}
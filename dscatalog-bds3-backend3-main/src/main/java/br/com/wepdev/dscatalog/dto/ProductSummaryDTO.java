@@ -0,0 +1,83 @@
+package br.com.wepdev.dscatalog.dto;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Representação enxuta para listagens: montada direto de uma projeção JPQL (sem entidade
+ * gerenciada) e sem a description.
+ */
+public class ProductSummaryDTO implements Serializable {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private Long id;
+	private String name;
+	private Double price;
+	private String imgUrl;
+	private Instant date;
+
+	private List<CategoryDTO> categories = new ArrayList<>();
+
+	public ProductSummaryDTO() {
+	}
+
+	public ProductSummaryDTO(Long id, String name, Double price, String imgUrl, Instant date) {
+		this.id = id;
+		this.name = name;
+		this.price = price;
+		this.imgUrl = imgUrl;
+		this.date = date;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Double getPrice() {
+		return price;
+	}
+
+	public void setPrice(Double price) {
+		this.price = price;
+	}
+
+	public String getImgUrl() {
+		return imgUrl;
+	}
+
+	public void setImgUrl(String imgUrl) {
+		this.imgUrl = imgUrl;
+	}
+
+	public Instant getDate() {
+		return date;
+	}
+
+	public void setDate(Instant date) {
+		this.date = date;
+	}
+
+	public List<CategoryDTO> getCategories() {
+		return categories;
+	}
+
+	public void setCategories(List<CategoryDTO> categories) {
+		this.categories = categories;
+	}
+}
@@ -1,5 +1,7 @@
 package br.com.wepdev.dscatalog.repositories;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -8,4 +10,5 @@ import br.com.wepdev.dscatalog.domain.Category;
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
+	Slice<Category> findAllBy(Pageable pageable);
 }
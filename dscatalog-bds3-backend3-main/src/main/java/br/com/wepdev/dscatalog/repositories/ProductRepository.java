@@ -1,28 +1,74 @@
 package br.com.wepdev.dscatalog.repositories;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import br.com.wepdev.dscatalog.domain.Product;
+import br.com.wepdev.dscatalog.dto.CategoryFacetDTO;
+import br.com.wepdev.dscatalog.dto.ProductCategoryDTO;
+import br.com.wepdev.dscatalog.dto.ProductExportRowDTO;
+import br.com.wepdev.dscatalog.dto.ProductSuggestionDTO;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+
+    /**
+     * Segunda fase: produtos e categorias dos ids da página em uma única query. O DISTINCT fica
+     * só na memória (passDistinctThrough = false), sem ordenar as linhas largas no banco.
+     */
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    @Query("SELECT DISTINCT obj FROM Product obj LEFT JOIN FETCH obj.categories WHERE obj.id IN :ids")
+    List<Product> findWithCategoriesByIdIn(Collection<Long> ids);
+
+    @Query("""
+    SELECT new br.com.wepdev.dscatalog.dto.ProductCategoryDTO(obj.id, cats.id, cats.name)
+    FROM Product obj
+    JOIN obj.categories cats
+    WHERE obj.id IN :ids""")
+    List<ProductCategoryDTO> findCategoriesByProductIdIn(Collection<Long> ids);
 
+    // contagem por categoria em um único GROUP BY sobre tb_product_category
     @Query("""
-    SELECT DISTINCT obj
+    SELECT new br.com.wepdev.dscatalog.dto.CategoryFacetDTO(cats.id, cats.name, COUNT(obj))
     FROM Product obj
     JOIN obj.categories cats
+    WHERE LOWER(obj.name) LIKE :pattern
+    GROUP BY cats.id, cats.name
+    ORDER BY cats.name""")
+    List<CategoryFacetDTO> countByCategory(String pattern);
+
+    // carga do índice de sugestões: só id e nome, sem descrição nem categorias
+    @Query("SELECT new br.com.wepdev.dscatalog.dto.ProductSuggestionDTO(obj.id, obj.name) FROM Product obj")
+    List<ProductSuggestionDTO> findAllNames();
+
+    /**
+     * Exportação: uma linha por produto x categoria, ordenada por produto para o service agrupar
+     * enquanto lê. O fetch size limita quantas linhas o driver traz por vez (no Postgres o cursor
+     * só é usado dentro de transação). O Stream precisa ser fechado.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+    SELECT new br.com.wepdev.dscatalog.dto.ProductExportRowDTO(
+        obj.id, obj.name, obj.description, obj.price, obj.imgUrl, obj.date, cats.id, cats.name)
+    FROM Product obj
+    LEFT JOIN obj.categories cats
     WHERE
-    (:categoryId IS NULL OR cats.id = :categoryId)
+    (:categoryId IS NULL OR obj.id IN (SELECT p.id FROM Product p JOIN p.categories c
+        WHERE c.id = :categoryId))
     AND
-    LOWER(obj.name) LIKE LOWER(CONCAT('%', :name, '%'))""")
-    Page<Product> find(Long categoryId, String name, Pageable pageable);
-
+    LOWER(obj.name) LIKE :pattern
+    ORDER BY obj.id, cats.id""")
+    Stream<ProductExportRowDTO> streamForExport(Long categoryId, String pattern);
 
     @Query("SELECT obj FROM Product obj JOIN FETCH obj.categories WHERE obj IN :products")
     List<Product> findProductsWithCategories(List<Product> products);
@@ -0,0 +1,71 @@
+package br.com.wepdev.dscatalog.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import br.com.wepdev.dscatalog.domain.Product;
+import br.com.wepdev.dscatalog.dto.PriceBucketDTO;
+import br.com.wepdev.dscatalog.dto.ProductDTO;
+import br.com.wepdev.dscatalog.dto.ProductSummaryDTO;
+
+/**
+ * Consultas do Product que precisam montar o SQL em tempo de execução. As buscas filtradas
+ * recebem o mesmo filtro: categoryId e as faixas de preço nulos desligam a condição, e o padrão
+ * do nome já vem em minúsculas e com os curingas (LOWER(name) LIKE ?, a expressão do índice GIN
+ * pg_trgm da V6 no Postgres). Como no JOIN da busca original, produto sem categoria não aparece.
+ */
+public interface ProductRepositoryCustom {
+
+	/**
+	 * Primeira fase da busca: pagina apenas os ids. Os produtos da página são carregados depois
+	 * por findWithCategoriesByIdIn. O COUNT só roda quando a página não basta para saber o total.
+	 */
+	Page<Long> findIds(Long categoryId, String pattern, Double minPrice, Double maxPrice, Pageable pageable);
+
+	// Slice não dispara o COUNT: busca size + 1 ids para saber se há próxima
+	Slice<Long> findIdSlice(Long categoryId, String pattern, Double minPrice, Double maxPrice, Pageable pageable);
+
+	/**
+	 * Listagem enxuta: só as colunas do resumo, sem criar entidades e sem ler a description.
+	 * As categorias vêm de findCategoriesByProductIdIn.
+	 */
+	Page<ProductSummaryDTO> findSummaries(Long categoryId, String pattern, Pageable pageable);
+
+	long countByFilter(Long categoryId, String pattern, Double minPrice, Double maxPrice);
+
+	/**
+	 * Paginação por cursor (keyset) ordenada por (name, id): continua depois da última linha
+	 * entregue em vez de usar OFFSET. lastName/lastId nulos indicam a primeira página; só o
+	 * tamanho do pageable é usado.
+	 */
+	List<Product> findNextByName(Long categoryId, String pattern, Double minPrice, Double maxPrice,
+			String lastName, Long lastId, Pageable pageable);
+
+	List<Product> findNextById(Long categoryId, String pattern, Double minPrice, Double maxPrice, Long lastId,
+			Pageable pageable);
+
+	/**
+	 * Reajuste em um único UPDATE: price = price * factor + amount, arredondado em centavos.
+	 * Produtos cujo preço ficaria menor ou igual a zero não são alterados. O contexto de
+	 * persistência é limpo depois, porque o UPDATE não passa pelas entidades já carregadas.
+	 */
+	int adjustPrices(Long categoryId, String pattern, double factor, double amount);
+
+	/**
+	 * Histograma de preços dos produtos do filtro: buckets faixas de mesma largura entre o menor
+	 * e o maior preço encontrados (ou entre minPrice/maxPrice, quando informados).
+	 */
+	List<PriceBucketDTO> priceHistogram(Long categoryId, String pattern, Double minPrice, Double maxPrice, int buckets);
+
+	/**
+	 * Produtos dos ids com apenas as colunas pedidas preenchidas (o id sempre vem). Campos fora
+	 * de name, description, price, imgUrl e date são ignorados; categorias não são carregadas.
+	 * A lista volta na ordem do banco.
+	 */
+	List<ProductDTO> findFieldsByIdIn(Collection<Long> ids, Set<String> fields);
+}
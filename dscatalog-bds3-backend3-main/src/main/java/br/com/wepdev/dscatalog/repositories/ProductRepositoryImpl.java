@@ -0,0 +1,330 @@
+package br.com.wepdev.dscatalog.repositories;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
+
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.InstantType;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import br.com.wepdev.dscatalog.domain.Product;
+import br.com.wepdev.dscatalog.dto.PriceBucketDTO;
+import br.com.wepdev.dscatalog.dto.ProductDTO;
+import br.com.wepdev.dscatalog.dto.ProductSummaryDTO;
+import br.com.wepdev.dscatalog.services.exceptions.InvalidParameterException;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+	private static final List<String> COLUMNS = List.of("name", "description", "price", "imgUrl", "date");
+
+	// campos aceitos no sort= das listagens; o texto da requisição nunca entra no SQL
+	private static final Map<String, String> SORT_COLUMNS = Map.of(
+			"id", "p.id", "name", "p.name", "price", "p.price", "imgUrl", "p.img_url", "date", "p.date");
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Page<Long> findIds(Long categoryId, String pattern, Double minPrice, Double maxPrice, Pageable pageable) {
+		ProductFilter filter = new ProductFilter(categoryId, pattern, minPrice, maxPrice);
+		List<Long> ids = findIds(filter, pageable, 0);
+		return PageableExecutionUtils.getPage(ids, pageable, () -> count(filter));
+	}
+
+	@Override
+	public Slice<Long> findIdSlice(Long categoryId, String pattern, Double minPrice, Double maxPrice,
+			Pageable pageable) {
+		List<Long> ids = findIds(new ProductFilter(categoryId, pattern, minPrice, maxPrice), pageable, 1);
+		boolean hasNext = pageable.isPaged() && ids.size() > pageable.getPageSize();
+		return new SliceImpl<>(hasNext ? ids.subList(0, pageable.getPageSize()) : ids, pageable, hasNext);
+	}
+
+	@Override
+	public Page<ProductSummaryDTO> findSummaries(Long categoryId, String pattern, Pageable pageable) {
+		ProductFilter filter = new ProductFilter(categoryId, pattern, null, null);
+		Query query = filter.bind(entityManager.createNativeQuery(
+				"SELECT p.id, p.name, p.price, p.img_url, p.date FROM tb_product p" + filter.where()
+						+ orderBy(pageable.getSort())));
+		query.unwrap(NativeQuery.class)
+				.addScalar("id", StandardBasicTypes.LONG)
+				.addScalar("name", StandardBasicTypes.STRING)
+				.addScalar("price", StandardBasicTypes.DOUBLE)
+				.addScalar("img_url", StandardBasicTypes.STRING)
+				.addScalar("date", InstantType.INSTANCE);
+		page(query, pageable, 0);
+
+		List<ProductSummaryDTO> content = new ArrayList<>();
+		for (Object row : query.getResultList()) {
+			Object[] columns = (Object[]) row;
+			content.add(new ProductSummaryDTO((Long) columns[0], (String) columns[1], (Double) columns[2],
+					(String) columns[3], (Instant) columns[4]));
+		}
+		return PageableExecutionUtils.getPage(content, pageable, () -> count(filter));
+	}
+
+	@Override
+	public long countByFilter(Long categoryId, String pattern, Double minPrice, Double maxPrice) {
+		return count(new ProductFilter(categoryId, pattern, minPrice, maxPrice));
+	}
+
+	@Override
+	public List<Product> findNextByName(Long categoryId, String pattern, Double minPrice, Double maxPrice,
+			String lastName, Long lastId, Pageable pageable) {
+		ProductFilter filter = new ProductFilter(categoryId, pattern, minPrice, maxPrice);
+		/*
+		 * Comparação de linha, não "name > ? OR (name = ? AND id > ?)": só ela vira limite de faixa
+		 * no idx_product_name_id (V9), e cada página começa direto depois da anterior. A primeira
+		 * página não leva a condição.
+		 */
+		String after = (lastId == null) ? "" : " AND (p.name, p.id) > (:lastName, :lastId)";
+		Query query = filter.bind(entityManager.createNativeQuery(
+				"SELECT p.* FROM tb_product p" + filter.where() + after + " ORDER BY p.name, p.id", Product.class));
+		if (lastId != null) {
+			query.setParameter("lastName", lastName);
+			query.setParameter("lastId", lastId);
+		}
+		return products(query.setMaxResults(pageable.getPageSize()));
+	}
+
+	@Override
+	public List<Product> findNextById(Long categoryId, String pattern, Double minPrice, Double maxPrice, Long lastId,
+			Pageable pageable) {
+		ProductFilter filter = new ProductFilter(categoryId, pattern, minPrice, maxPrice);
+		String after = (lastId == null) ? "" : " AND p.id > :lastId";
+		Query query = filter.bind(entityManager.createNativeQuery(
+				"SELECT p.* FROM tb_product p" + filter.where() + after + " ORDER BY p.id", Product.class));
+		if (lastId != null) {
+			query.setParameter("lastId", lastId);
+		}
+		return products(query.setMaxResults(pageable.getPageSize()));
+	}
+
+	@Override
+	public int adjustPrices(Long categoryId, String pattern, double factor, double amount) {
+		ProductFilter filter = new ProductFilter(categoryId, pattern, null, null);
+		/*
+		 * Arredondado em centavos: em double +10% sobre 100.00 daria 110.00000000000001, e cada
+		 * reajuste somaria erro. O ROUND de duas casas do Postgres só existe para NUMERIC, e a escala
+		 * vai explícita porque no H2 NUMERIC sem escala arredonda para inteiro.
+		 */
+		String adjusted = "ROUND(CAST(p.price * :factor + :amount AS DECIMAL(30, 10)), 2)";
+		Query query = filter.bind(entityManager.createNativeQuery(
+				"UPDATE tb_product p SET price = " + adjusted + filter.where() + " AND " + adjusted + " > 0"));
+		query.setParameter("factor", factor);
+		query.setParameter("amount", amount);
+		// sem isso o Hibernate invalida todas as regiões do cache de segundo nível, não só as do Product
+		query.unwrap(NativeQuery.class).addSynchronizedEntityClass(Product.class);
+		int updated = query.executeUpdate();
+		entityManager.clear();
+		return updated;
+	}
+
+	@Override
+	public List<PriceBucketDTO> priceHistogram(Long categoryId, String pattern, Double minPrice, Double maxPrice,
+			int buckets) {
+
+		if (minPrice == null || maxPrice == null) {
+			ProductFilter filter = new ProductFilter(categoryId, pattern, minPrice, maxPrice);
+			Object[] range = (Object[]) filter.bind(entityManager.createNativeQuery(
+					"SELECT MIN(p.price), MAX(p.price) FROM tb_product p" + filter.where()))
+					.getSingleResult();
+			if (range[0] == null) {
+				return List.of();
+			}
+			minPrice = (minPrice != null) ? minPrice : ((Number) range[0]).doubleValue();
+			maxPrice = (maxPrice != null) ? maxPrice : ((Number) range[1]).doubleValue();
+		}
+		if (maxPrice < minPrice) {
+			return List.of();
+		}
+		double width = (maxPrice > minPrice) ? (maxPrice - minPrice) / buckets : 1.0;
+
+		/*
+		 * O índice do bucket entra como literal e não como parâmetro: com parâmetros o Postgres vê
+		 * a expressão do SELECT e a do GROUP BY como diferentes ($1 x $3) e recusa o agrupamento.
+		 * Os dois números são calculados aqui, nunca vêm da requisição como texto.
+		 */
+		ProductFilter filter = new ProductFilter(categoryId, pattern, minPrice, maxPrice);
+		String bucket = "FLOOR((p.price - " + literal(minPrice) + ") / " + literal(width) + ")";
+		Query query = filter.bind(entityManager.createNativeQuery(
+				"SELECT " + bucket + ", COUNT(*) FROM tb_product p" + filter.where() + " GROUP BY " + bucket));
+
+		long[] counts = new long[buckets];
+		for (Object result : query.getResultList()) {
+			Object[] row = (Object[]) result;
+			// o preço máximo cai no índice buckets; ele fecha a última faixa
+			int index = Math.max(0, Math.min(((Number) row[0]).intValue(), buckets - 1));
+			counts[index] += ((Number) row[1]).longValue();
+		}
+		List<PriceBucketDTO> result = new ArrayList<>(buckets);
+		for (int i = 0; i < buckets; i++) {
+			double from = minPrice + i * width;
+			double to = (i == buckets - 1) ? maxPrice : minPrice + (i + 1) * width;
+			result.add(new PriceBucketDTO(from, to, counts[i]));
+		}
+		return result;
+	}
+
+	@Override
+	public List<ProductDTO> findFieldsByIdIn(Collection<Long> ids, Set<String> fields) {
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		// só nomes desta lista entram no JPQL, nunca o texto que veio na requisição
+		StringBuilder select = new StringBuilder("obj.id AS id");
+		for (String column : COLUMNS) {
+			if (fields.contains(column)) {
+				select.append(", obj.").append(column).append(" AS ").append(column);
+			}
+		}
+		List<Tuple> rows = entityManager.createQuery(
+				"SELECT " + select + " FROM Product obj WHERE obj.id IN :ids", Tuple.class)
+				.setParameter("ids", ids)
+				.getResultList();
+
+		List<ProductDTO> result = new ArrayList<>(rows.size());
+		for (Tuple row : rows) {
+			ProductDTO dto = new ProductDTO();
+			dto.setId(row.get("id", Long.class));
+			if (fields.contains("name")) {
+				dto.setName(row.get("name", String.class));
+			}
+			if (fields.contains("description")) {
+				dto.setDescription(row.get("description", String.class));
+			}
+			if (fields.contains("price")) {
+				dto.setPrice(row.get("price", Double.class));
+			}
+			if (fields.contains("imgUrl")) {
+				dto.setImgUrl(row.get("imgUrl", String.class));
+			}
+			if (fields.contains("date")) {
+				dto.setDate(row.get("date", Instant.class));
+			}
+			result.add(dto);
+		}
+		return result;
+	}
+
+	private List<Long> findIds(ProductFilter filter, Pageable pageable, int extra) {
+		Query query = filter.bind(entityManager.createNativeQuery(
+				"SELECT p.id FROM tb_product p" + filter.where() + orderBy(pageable.getSort())));
+		page(query, pageable, extra);
+		List<Long> ids = new ArrayList<>();
+		for (Object id : query.getResultList()) {
+			ids.add(((Number) id).longValue());
+		}
+		return ids;
+	}
+
+	private long count(ProductFilter filter) {
+		Query query = filter.bind(entityManager.createNativeQuery("SELECT COUNT(*) FROM tb_product p" + filter.where()));
+		return ((Number) query.getSingleResult()).longValue();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Product> products(Query query) {
+		return query.getResultList();
+	}
+
+	private static void page(Query query, Pageable pageable, int extra) {
+		if (pageable.isPaged()) {
+			query.setFirstResult((int) pageable.getOffset());
+			query.setMaxResults(pageable.getPageSize() + extra);
+		}
+	}
+
+	private static String orderBy(Sort sort) {
+		if (sort.isUnsorted()) {
+			return "";
+		}
+		StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "");
+		for (Sort.Order order : sort) {
+			String column = SORT_COLUMNS.get(order.getProperty());
+			if (column == null) {
+				throw new InvalidParameterException("Campo de ordenação inválido: " + order.getProperty());
+			}
+			if (order.isIgnoreCase()) {
+				column = "LOWER(" + column + ")";
+			}
+			orderBy.add(column + (order.isAscending() ? " ASC" : " DESC"));
+		}
+		return orderBy.toString();
+	}
+
+	private static String literal(double value) {
+		return BigDecimal.valueOf(value).toPlainString();
+	}
+
+	/**
+	 * Filtro das buscas, com só as condições informadas: sem os ":x IS NULL OR ..." cada
+	 * combinação vira um SQL próprio, e o plano (inclusive o genérico do Postgres) consegue usar
+	 * os índices. A categoria é um EXISTS direto em tb_product_category, que cai no
+	 * idx_product_category_category da V8 sem passar por tb_category. Sem categoria o EXISTS só
+	 * descarta os produtos sem nenhuma ligação, pela PK, como o JOIN da busca original fazia.
+	 */
+	private static final class ProductFilter {
+
+		private final Long categoryId;
+
+		private final String pattern;
+
+		private final Double minPrice;
+
+		private final Double maxPrice;
+
+		ProductFilter(Long categoryId, String pattern, Double minPrice, Double maxPrice) {
+			this.categoryId = categoryId;
+			this.pattern = pattern;
+			this.minPrice = minPrice;
+			this.maxPrice = maxPrice;
+		}
+
+		String where() {
+			StringBuilder where = new StringBuilder(
+					" WHERE EXISTS (SELECT 1 FROM tb_product_category pc WHERE pc.product_id = p.id");
+			if (categoryId != null) {
+				where.append(" AND pc.category_id = :categoryId");
+			}
+			where.append(") AND LOWER(p.name) LIKE :pattern");
+			if (minPrice != null) {
+				where.append(" AND p.price >= :minPrice");
+			}
+			if (maxPrice != null) {
+				where.append(" AND p.price <= :maxPrice");
+			}
+			return where.toString();
+		}
+
+		Query bind(Query query) {
+			if (categoryId != null) {
+				query.setParameter("categoryId", categoryId);
+			}
+			query.setParameter("pattern", pattern);
+			if (minPrice != null) {
+				query.setParameter("minPrice", minPrice);
+			}
+			if (maxPrice != null) {
+				query.setParameter("maxPrice", maxPrice);
+			}
+			return query;
+		}
+	}
+}
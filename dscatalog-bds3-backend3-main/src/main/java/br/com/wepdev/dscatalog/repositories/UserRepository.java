@@ -1,12 +1,41 @@
 package br.com.wepdev.dscatalog.repositories;
 
+import java.util.Optional;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import br.com.wepdev.dscatalog.domain.User;
+import br.com.wepdev.dscatalog.dto.UserDTO;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
 	User findByEmail(String email);
+
+	Slice<User> findAllBy(Pageable pageable);
+
+	// para tirar o usuário do cache de login antes de excluir por id
+	@Query("SELECT obj.email FROM User obj WHERE obj.id = :id")
+	Optional<String> findEmailById(Long id);
+
+	/*
+	 * Projeções sem a senha e sem os perfis (EAGER no User), para as leituras com ?fields= que
+	 * não pedem roles.
+	 */
+	@Query("SELECT new br.com.wepdev.dscatalog.dto.UserDTO(obj.id, obj.firstName, obj.lastName, obj.email) FROM User obj")
+	Page<UserDTO> findSummaries(Pageable pageable);
+
+	@Query("SELECT new br.com.wepdev.dscatalog.dto.UserDTO(obj.id, obj.firstName, obj.lastName, obj.email) FROM User obj")
+	Slice<UserDTO> findSummarySlice(Pageable pageable);
+
+	@Query("""
+	SELECT new br.com.wepdev.dscatalog.dto.UserDTO(obj.id, obj.firstName, obj.lastName, obj.email)
+	FROM User obj
+	WHERE obj.id = :id""")
+	Optional<UserDTO> findSummaryById(Long id);
 }
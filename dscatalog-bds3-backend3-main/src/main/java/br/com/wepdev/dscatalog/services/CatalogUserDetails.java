@@ -0,0 +1,46 @@
+package br.com.wepdev.dscatalog.services;
+
+import java.io.Serial;
+import java.util.Collection;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Cópia imutável do usuário guardada no cache de login: email, hash da senha e authorities, mais
+ * o id e o primeiro nome que vão no token. Nunca é a entidade gerenciada, então nada que mexa na
+ * entidade (perfis, senha) altera o que está no cache; o UserService remove a entrada quando o
+ * usuário é atualizado ou excluído.
+ */
+public class CatalogUserDetails extends User {
+
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private final Long id;
+
+	private final String firstName;
+
+	public CatalogUserDetails(Long id, String firstName, String email, String password,
+			Collection<? extends GrantedAuthority> authorities) {
+		super(email, password, authorities);
+		this.id = id;
+		this.firstName = firstName;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getFirstName() {
+		return firstName;
+	}
+
+	/**
+	 * O ProviderManager apaga a senha do principal depois de autenticar; quem pede o usuário
+	 * recebe esta cópia para que a instância do cache mantenha o hash.
+	 */
+	public CatalogUserDetails copy() {
+		return new CatalogUserDetails(id, firstName, getUsername(), getPassword(), getAuthorities());
+	}
+}
@@ -0,0 +1,66 @@
+package br.com.wepdev.dscatalog.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.wepdev.dscatalog.domain.Category;
+import br.com.wepdev.dscatalog.repositories.CategoryRepository;
+import br.com.wepdev.dscatalog.services.exceptions.InvalidReferenceException;
+
+/**
+ * Resolve ids de categoria para entidades com um único SELECT ... IN, usado pelo cadastro de
+ * produto (uma consulta por produto) e pela importação (uma por lote). Um id inexistente é
+ * rejeitado aqui, com a lista de todos os ids ruins, em vez de estourar na FK durante o flush.
+ */
+@Service
+public class CategoryResolver {
+
+	private static final String FIELD = "categories";
+
+	private final CategoryRepository repository;
+
+	public CategoryResolver(CategoryRepository repository) {
+		this.repository = repository;
+	}
+
+	/**
+	 * @return as categorias na ordem dos ids pedidos, sem repetição
+	 * @throws InvalidReferenceException se algum id não existe (ou é nulo)
+	 */
+	@Transactional(readOnly = true)
+	public Map<Long, Category> resolve(Collection<Long> ids) {
+		Set<Long> wanted = new LinkedHashSet<>(ids);
+		if (wanted.isEmpty()) {
+			return new LinkedHashMap<>();
+		}
+		Map<Long, Category> found = new HashMap<>();
+		for (Category category : repository.findAllById(wanted.stream().filter(Objects::nonNull).toList())) {
+			found.put(category.getId(), category);
+		}
+		Map<Long, Category> result = new LinkedHashMap<>();
+		List<Long> missing = new ArrayList<>();
+		for (Long id : wanted) {
+			Category category = (id == null) ? null : found.get(id);
+			if (category == null) {
+				missing.add(id);
+			}
+			else {
+				result.put(id, category);
+			}
+		}
+		if (!missing.isEmpty()) {
+			throw new InvalidReferenceException(FIELD, missing);
+		}
+		return result;
+	}
+}
@@ -1,16 +1,27 @@
 package br.com.wepdev.dscatalog.services;
 
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
 import javax.persistence.EntityNotFoundException;
 
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import br.com.wepdev.dscatalog.components.CatalogGeneration;
+import br.com.wepdev.dscatalog.components.CountCache;
+import br.com.wepdev.dscatalog.config.CacheConfig;
+import br.com.wepdev.dscatalog.config.PrimaryReads;
 import br.com.wepdev.dscatalog.dto.CategoryDTO;
 import br.com.wepdev.dscatalog.domain.Category;
 import br.com.wepdev.dscatalog.repositories.CategoryRepository;
@@ -20,16 +31,94 @@ import br.com.wepdev.dscatalog.services.exceptions.ResourceNotFoundException;
 @Service
 public class CategoryService {
 
+	private static final String COUNT_KEY = "category";
+
 	private final CategoryRepository repository;
 
-    public CategoryService(CategoryRepository repository) {
+	private final CountCache countCache;
+
+	private final CatalogGeneration catalogGeneration;
+
+	/*
+	 * Cópia em memória de todas as categorias. É carregada na primeira leitura e, a cada escrita,
+	 * substituída por uma nova cópia depois do commit. O contador de escritas impede que uma carga
+	 * que começou antes de uma escrita instale dados já velhos.
+	 */
+	private volatile CategorySnapshot snapshot;
+
+	private long writes;
+
+	private final Object snapshotLock = new Object();
+
+	private final PrimaryReads primaryReads;
+
+    public CategoryService(CategoryRepository repository, CountCache countCache, CatalogGeneration catalogGeneration,
+            PrimaryReads primaryReads) {
         this.repository = repository;
+        this.countCache = countCache;
+        this.catalogGeneration = catalogGeneration;
+        this.primaryReads = primaryReads;
     }
 
-    @Transactional(readOnly = true)
+	public CategorySnapshot findAllSnapshot() {
+		CategorySnapshot current = snapshot;
+		return (current != null) ? current : loadSnapshot();
+	}
+
+	private CategorySnapshot loadSnapshot() {
+		long seen;
+		synchronized (snapshotLock) {
+			seen = writes;
+		}
+		CategorySnapshot loaded = primaryReads.call(
+				() -> CategorySnapshot.of(repository.findAll().stream().map(CategoryDTO::new).toList()));
+		synchronized (snapshotLock) {
+			if (writes == seen && snapshot == null) {
+				snapshot = loaded;
+			}
+		}
+		return loaded;
+	}
+
+	private void updateSnapshot(UnaryOperator<CategorySnapshot> change) {
+		Runnable apply = () -> {
+			synchronized (snapshotLock) {
+				writes++;
+				if (snapshot != null) {
+					snapshot = change.apply(snapshot);
+				}
+			}
+		};
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					apply.run();
+				}
+			});
+		}
+		else {
+			apply.run();
+		}
+	}
+
 	public Page<CategoryDTO> findAllPaged(Pageable pageable) {
-		Page<Category> list = repository.findAll(pageable);
-		return list.map(CategoryDTO::new);
+		Page<CategoryDTO> page = findAllSnapshot().page(pageable);
+		return (page != null) ? page : repository.findAll(pageable).map(CategoryDTO::new);
+	}
+
+	public Slice<CategoryDTO> findAllSliced(Pageable pageable, boolean estimateTotal) {
+		Page<CategoryDTO> page = findAllSnapshot().page(pageable);
+		if (page != null) {
+			// na cópia o total exato não custa nada, então só o modo sem total vira Slice
+			return estimateTotal ? page : new SliceImpl<>(page.getContent(), pageable, page.hasNext());
+		}
+		Slice<CategoryDTO> slice = repository.findAllBy(pageable).map(CategoryDTO::new);
+		if (!estimateTotal) {
+			return slice;
+		}
+		long total = countCache.get(COUNT_KEY, repository::count);
+		return new PageImpl<>(slice.getContent(), pageable, total);
 	}
 
 	@Transactional(readOnly = true)
@@ -44,16 +133,25 @@ public class CategoryService {
 		Category entity = new Category();
 		entity.setName(dto.getName());
 		entity = repository.save(entity);
-		return new CategoryDTO(entity);
+		countCache.invalidate(COUNT_KEY);
+		catalogGeneration.bump();
+		CategoryDTO result = new CategoryDTO(entity);
+		updateSnapshot(current -> current.with(result));
+		return result;
 	}
 
+	// o ProductDTO em cache leva o nome das categorias, então renomear invalida todos os produtos
+	@CacheEvict(cacheNames = CacheConfig.PRODUCTS, allEntries = true)
 	@Transactional
 	public CategoryDTO update(Long id, CategoryDTO dto) {
 		try {
 			Category entity = repository.getReferenceById(id);
 			entity.setName(dto.getName());
 			entity = repository.save(entity);
-			return new CategoryDTO(entity);
+			catalogGeneration.bump();
+			CategoryDTO result = new CategoryDTO(entity);
+			updateSnapshot(current -> current.with(result));
+			return result;
 		}
 		catch (EntityNotFoundException e) {
 			throw new ResourceNotFoundException("Id não encontrado " + id);
@@ -63,6 +161,9 @@ public class CategoryService {
 	public void delete(Long id) {
 		try {
 			repository.deleteById(id);
+			countCache.invalidate(COUNT_KEY);
+			catalogGeneration.bump();
+			updateSnapshot(current -> current.without(id));
 		}
 		catch (EmptyResultDataAccessException e) {
 			throw new ResourceNotFoundException("Id não encontrado " + id);
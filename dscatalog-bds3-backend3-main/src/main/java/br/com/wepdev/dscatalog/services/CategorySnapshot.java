@@ -0,0 +1,117 @@
+package br.com.wepdev.dscatalog.services;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.wepdev.dscatalog.dto.CategoryDTO;
+
+/**
+ * Cópia imutável de todas as categorias, ordenada por id. Nunca é alterada: cada escrita gera
+ * uma nova cópia (with/without) que substitui a anterior no {@link CategoryService}.
+ */
+public final class CategorySnapshot {
+
+	private static final Locale PT_BR = Locale.forLanguageTag("pt-BR");
+
+	private final List<CategoryDTO> categories;
+
+	// JSON da lista inteira, serializado no primeiro pedido e reaproveitado até a próxima cópia
+	private volatile byte[] json;
+
+	private CategorySnapshot(List<CategoryDTO> categories) {
+		this.categories = categories;
+	}
+
+	public static CategorySnapshot of(List<CategoryDTO> categories) {
+		List<CategoryDTO> copy = new ArrayList<>(categories.size());
+		categories.forEach(cat -> copy.add(new CategoryDTO(cat.getId(), cat.getName())));
+		copy.sort(Comparator.comparing(CategoryDTO::getId));
+		return new CategorySnapshot(List.copyOf(copy));
+	}
+
+	public List<CategoryDTO> getCategories() {
+		return categories;
+	}
+
+	public byte[] toJson(ObjectMapper mapper) throws JsonProcessingException {
+		byte[] result = json;
+		if (result == null) {
+			result = mapper.writeValueAsBytes(categories);
+			json = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Página da cópia em memória, ou null quando a ordenação pede uma propriedade que a cópia
+	 * não tem (createdAt, updatedAt); nesse caso a consulta vai para o banco.
+	 */
+	Page<CategoryDTO> page(Pageable pageable) {
+		List<CategoryDTO> list = categories;
+		if (pageable.getSort().isSorted()) {
+			Comparator<CategoryDTO> comparator = comparator(pageable.getSort());
+			if (comparator == null) {
+				return null;
+			}
+			list = new ArrayList<>(categories);
+			list.sort(comparator);
+		}
+		if (pageable.isUnpaged()) {
+			return new PageImpl<>(list, pageable, list.size());
+		}
+		int from = (int) Math.min(pageable.getOffset(), list.size());
+		int to = Math.min(from + pageable.getPageSize(), list.size());
+		return new PageImpl<>(list.subList(from, to), pageable, list.size());
+	}
+
+	CategorySnapshot with(CategoryDTO dto) {
+		List<CategoryDTO> copy = new ArrayList<>(categories);
+		copy.removeIf(cat -> cat.getId().equals(dto.getId()));
+		copy.add(dto);
+		return of(copy);
+	}
+
+	CategorySnapshot without(Long id) {
+		List<CategoryDTO> copy = new ArrayList<>(categories);
+		copy.removeIf(cat -> cat.getId().equals(id));
+		return new CategorySnapshot(List.copyOf(copy));
+	}
+
+	private static Comparator<CategoryDTO> comparator(Sort sort) {
+		Comparator<CategoryDTO> result = null;
+		for (Sort.Order order : sort) {
+			Comparator<CategoryDTO> next;
+			if ("id".equals(order.getProperty())) {
+				next = Comparator.comparing(CategoryDTO::getId);
+			}
+			else if ("name".equals(order.getProperty())) {
+				// ordem alfabética do pt-BR, como a collation do banco: "Áudio" antes de "Brinquedos"
+				// e maiúsculas junto das minúsculas; ignoreCase só desliga o desempate por caixa
+				Collator collator = Collator.getInstance(PT_BR);
+				if (order.isIgnoreCase()) {
+					collator.setStrength(Collator.SECONDARY);
+				}
+				next = Comparator.comparing(CategoryDTO::getName, collator);
+			}
+			else {
+				return null;
+			}
+			if (order.isDescending()) {
+				next = next.reversed();
+			}
+			result = (result == null) ? next : result.thenComparing(next);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,22 @@
+package br.com.wepdev.dscatalog.services;
+
+import java.util.Locale;
+
+import br.com.wepdev.dscatalog.services.exceptions.InvalidParameterException;
+
+/**
+ * Como as listagens informam o total: EXACT roda o COUNT a cada página, ESTIMATED usa o total
+ * do {@link br.com.wepdev.dscatalog.components.CountCache} e NONE devolve apenas um Slice.
+ */
+public enum CountMode {
+	EXACT, ESTIMATED, NONE;
+
+	public static CountMode of(String value) {
+		try {
+			return valueOf(value.trim().toUpperCase(Locale.ROOT));
+		}
+		catch (IllegalArgumentException e) {
+			throw new InvalidParameterException("Modo de contagem inválido: " + value);
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package br.com.wepdev.dscatalog.services;
+
+import java.util.Locale;
+
+import org.springframework.http.MediaType;
+
+import br.com.wepdev.dscatalog.services.exceptions.InvalidParameterException;
+
+/**
+ * Formatos da exportação do catálogo: NDJSON (um ProductDTO por linha) ou CSV.
+ */
+public enum ExportFormat {
+	NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+	CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+	private final MediaType mediaType;
+	private final String extension;
+
+	ExportFormat(MediaType mediaType, String extension) {
+		this.mediaType = mediaType;
+		this.extension = extension;
+	}
+
+	public MediaType getMediaType() {
+		return mediaType;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+
+	public static ExportFormat of(String value) {
+		try {
+			return valueOf(value.trim().toUpperCase(Locale.ROOT));
+		}
+		catch (IllegalArgumentException e) {
+			throw new InvalidParameterException("Formato de exportação inválido: " + value);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package br.com.wepdev.dscatalog.services;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import br.com.wepdev.dscatalog.services.exceptions.InvalidParameterException;
+
+/**
+ * Campos pedidos em ?fields=name,price. O id sempre vem junto, porque o cliente precisa dele
+ * para montar links e a segunda fase das listagens depende dele. Os services usam o conjunto
+ * para decidir quais colunas e relacionamentos consultar; o controller, para cortar o JSON.
+ */
+public final class FieldSet {
+
+	private static final String ID = "id";
+
+	private final Set<String> fields;
+
+	private FieldSet(Set<String> fields) {
+		this.fields = fields;
+	}
+
+	/**
+	 * @param value   lista separada por vírgula, como veio na requisição
+	 * @param allowed campos que a representação tem; qualquer outro é rejeitado com 400
+	 */
+	public static FieldSet of(String value, Set<String> allowed) {
+		Set<String> fields = new LinkedHashSet<>();
+		fields.add(ID);
+		for (String token : value.split(",")) {
+			String field = token.trim();
+			if (field.isEmpty()) {
+				continue;
+			}
+			if (!allowed.contains(field)) {
+				throw new InvalidParameterException("Campo inválido: " + field);
+			}
+			fields.add(field);
+		}
+		return new FieldSet(Collections.unmodifiableSet(fields));
+	}
+
+	public boolean contains(String field) {
+		return fields.contains(field);
+	}
+
+	public boolean containsAll(Set<String> others) {
+		return fields.containsAll(others);
+	}
+
+	public Set<String> getFields() {
+		return fields;
+	}
+
+	// mantém só os campos pedidos no JSON do objeto
+	public JsonNode select(ObjectMapper mapper, Object value) {
+		ObjectNode node = mapper.valueToTree(value);
+		return node.retain(fields);
+	}
+}
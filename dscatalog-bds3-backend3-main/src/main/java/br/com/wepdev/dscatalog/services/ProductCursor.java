@@ -0,0 +1,67 @@
+package br.com.wepdev.dscatalog.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import br.com.wepdev.dscatalog.domain.Product;
+import br.com.wepdev.dscatalog.services.exceptions.InvalidParameterException;
+
+/**
+ * Posição da última linha entregue na paginação por cursor: a chave de ordenação e o id
+ * que desempata. Vai para o cliente como Base64 (URL-safe) de "sort:id:nome".
+ */
+final class ProductCursor {
+
+	static final String SORT_NAME = "name";
+	static final String SORT_ID = "id";
+
+	private final String sort;
+	private final Long lastId;
+	private final String lastName;
+
+	private ProductCursor(String sort, Long lastId, String lastName) {
+		this.sort = sort;
+		this.lastId = lastId;
+		this.lastName = lastName;
+	}
+
+	static ProductCursor first(String sort) {
+		if (!SORT_NAME.equals(sort) && !SORT_ID.equals(sort)) {
+			throw new InvalidParameterException("Ordenação não suportada no modo cursor: " + sort);
+		}
+		return new ProductCursor(sort, null, null);
+	}
+
+	static ProductCursor after(String sort, Product last) {
+		return new ProductCursor(sort, last.getId(), last.getName());
+	}
+
+	static ProductCursor decode(String token) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			String[] parts = raw.split(":", 3);
+			ProductCursor cursor = first(parts[0]);
+			return new ProductCursor(cursor.sort, Long.valueOf(parts[1]), parts[2]);
+		}
+		catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			throw new InvalidParameterException("Cursor inválido");
+		}
+	}
+
+	String encode() {
+		String raw = sort + ":" + lastId + ":" + lastName;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	String getSort() {
+		return sort;
+	}
+
+	Long getLastId() {
+		return lastId;
+	}
+
+	String getLastName() {
+		return lastName;
+	}
+}
@@ -0,0 +1,130 @@
+package br.com.wepdev.dscatalog.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.wepdev.dscatalog.dto.CategoryDTO;
+import br.com.wepdev.dscatalog.dto.ProductDTO;
+import br.com.wepdev.dscatalog.dto.ProductExportRowDTO;
+import br.com.wepdev.dscatalog.repositories.ProductRepository;
+import br.com.wepdev.dscatalog.services.exceptions.ServiceBusyException;
+
+/**
+ * Exportação do catálogo inteiro em uma única resposta. As linhas vêm de um cursor do banco e
+ * cada produto é escrito assim que suas categorias terminam de chegar; nada além do produto
+ * corrente fica em memória.
+ *
+ * Cada exportação segura uma conexão e uma transação até o fim, então só
+ * catalog.export.max-concurrent rodam ao mesmo tempo; a próxima recebe 503 na hora.
+ */
+@Service
+public class ProductExportService {
+
+	// produtos escritos entre um flush e outro, para o cliente receber os dados aos poucos
+	private static final int FLUSH_EVERY = 200;
+
+	private final ProductRepository repository;
+
+	private final ObjectMapper objectMapper;
+
+	private final Semaphore slots;
+
+	public ProductExportService(ProductRepository repository, ObjectMapper objectMapper,
+			@Value("${catalog.export.max-concurrent:2}") int maxConcurrent) {
+		this.repository = repository;
+		this.objectMapper = objectMapper;
+		this.slots = new Semaphore(maxConcurrent);
+	}
+
+	/**
+	 * Reserva uma vaga antes de a resposta começar; quem recebe a vaga chama {@link #release()}
+	 * quando a exportação terminar, com ou sem erro.
+	 */
+	public void acquire() {
+		if (!slots.tryAcquire()) {
+			throw new ServiceBusyException("Limite de exportações simultâneas atingido, tente novamente em instantes");
+		}
+	}
+
+	public void release() {
+		slots.release();
+	}
+
+	@Transactional(readOnly = true)
+	public long export(Long categoryId, String name, ExportFormat format, OutputStream out) throws IOException {
+
+		Long categoryFilter = (categoryId == 0) ? null : categoryId;
+		String pattern = "%" + name.toLowerCase(Locale.ROOT) + "%";
+
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		if (format == ExportFormat.CSV) {
+			writer.write("id,name,description,price,imgUrl,date,categories\n");
+		}
+
+		long count = 0;
+		try (Stream<ProductExportRowDTO> rows = repository.streamForExport(categoryFilter, pattern)) {
+			Iterator<ProductExportRowDTO> it = rows.iterator();
+			ProductDTO current = null;
+			while (it.hasNext()) {
+				ProductExportRowDTO row = it.next();
+				if (current == null || !current.getId().equals(row.getId())) {
+					if (current != null) {
+						write(current, format, writer);
+						if (++count % FLUSH_EVERY == 0) {
+							writer.flush();
+						}
+					}
+					current = new ProductDTO(row.getId(), row.getName(), row.getDescription(), row.getPrice(),
+							row.getImgUrl(), row.getDate());
+				}
+				if (row.getCategoryId() != null) {
+					current.getCategories().add(new CategoryDTO(row.getCategoryId(), row.getCategoryName()));
+				}
+			}
+			if (current != null) {
+				write(current, format, writer);
+				count++;
+			}
+		}
+		writer.flush();
+		return count;
+	}
+
+	private void write(ProductDTO dto, ExportFormat format, Writer writer) throws IOException {
+		if (format == ExportFormat.CSV) {
+			String categories = dto.getCategories().stream().map(CategoryDTO::getName).collect(Collectors.joining("|"));
+			writer.write(dto.getId() + "," + csv(dto.getName()) + "," + csv(dto.getDescription()) + ","
+					+ (dto.getPrice() == null ? "" : dto.getPrice()) + "," + csv(dto.getImgUrl()) + "," + (dto.getDate() == null ? "" : dto.getDate())
+					+ "," + csv(categories) + "\n");
+		}
+		else {
+			writer.write(objectMapper.writeValueAsString(dto));
+			writer.write('\n');
+		}
+	}
+
+	private static String csv(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+}
@@ -0,0 +1,316 @@
+package br.com.wepdev.dscatalog.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import br.com.wepdev.dscatalog.components.CatalogGeneration;
+import br.com.wepdev.dscatalog.components.CountCache;
+import br.com.wepdev.dscatalog.components.ProductNameIndex;
+import br.com.wepdev.dscatalog.domain.Category;
+import br.com.wepdev.dscatalog.domain.Product;
+import br.com.wepdev.dscatalog.dto.CategoryDTO;
+import br.com.wepdev.dscatalog.dto.ImportErrorDTO;
+import br.com.wepdev.dscatalog.dto.ImportReportDTO;
+import br.com.wepdev.dscatalog.dto.ProductDTO;
+import br.com.wepdev.dscatalog.repositories.ProductRepository;
+import br.com.wepdev.dscatalog.services.exceptions.InvalidReferenceException;
+
+/**
+ * Importação em massa de produtos. O corpo é lido registro a registro pelo parser de streaming
+ * do Jackson (array JSON, NDJSON ou CSV no layout da exportação), cada linha é validada como no
+ * POST /products e as válidas são gravadas em lotes, uma transação por lote. Com a sequência
+ * pooled do Product e o hibernate.jdbc.batch_size os inserts de cada lote vão em batch JDBC.
+ */
+@Service
+public class ProductImportService {
+
+	private final ProductRepository repository;
+
+	private final CategoryResolver categoryResolver;
+
+	private final CategoryService categoryService;
+
+	private final CountCache countCache;
+
+	private final CatalogGeneration catalogGeneration;
+
+	private final ProductNameIndex nameIndex;
+
+	private final ObjectMapper objectMapper;
+
+	private final Validator validator;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final int batchSize;
+
+	private final int maxErrors;
+
+	public ProductImportService(ProductRepository repository, CategoryResolver categoryResolver,
+			CategoryService categoryService, CountCache countCache, CatalogGeneration catalogGeneration,
+			ProductNameIndex nameIndex, ObjectMapper objectMapper, Validator validator, PlatformTransactionManager transactionManager,
+			@Value("${catalog.import.batch-size:500}") int batchSize,
+			@Value("${catalog.import.max-errors:1000}") int maxErrors) {
+		this.repository = repository;
+		this.categoryResolver = categoryResolver;
+		this.categoryService = categoryService;
+		this.countCache = countCache;
+		this.catalogGeneration = catalogGeneration;
+		this.nameIndex = nameIndex;
+		this.objectMapper = objectMapper;
+		this.validator = validator;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.batchSize = batchSize;
+		this.maxErrors = maxErrors;
+	}
+
+	/**
+	 * @param format CSV ou NDJSON; no NDJSON um array JSON também é aceito
+	 */
+	public ImportReportDTO importProducts(InputStream in, ExportFormat format) throws IOException {
+		Job job = new Job();
+		if (format == ExportFormat.CSV) {
+			CsvSchema schema = CsvSchema.emptySchema().withHeader();
+			MappingIterator<Map<String, String>> it = new CsvMapper().readerFor(Map.class).with(schema).readValues(in);
+			read(it, job, this::fromCsv);
+		}
+		else {
+			MappingIterator<ProductDTO> it = objectMapper.readerFor(ProductDTO.class).readValues(in);
+			read(it, job, (row, dto, j) -> dto);
+		}
+		saveBatch(job);
+
+		if (job.report.getImported() > 0) {
+			countCache.invalidate(ProductService.COUNT_KEY);
+			catalogGeneration.bump();
+		}
+		return job.report;
+	}
+
+	private <T> void read(MappingIterator<T> it, Job job, RowMapper<T> mapper) {
+		while (true) {
+			T value;
+			long row = job.report.getTotal() + 1;
+			try {
+				if (!it.hasNextValue()) {
+					return;
+				}
+				value = it.nextValue();
+			}
+			catch (JsonMappingException e) {
+				// valor com tipo errado: o iterador pula o registro e a leitura continua
+				job.report.setTotal(row);
+				job.reject(row, field(e), "Valor inválido");
+				continue;
+			}
+			catch (IOException e) {
+				// conteúdo malformado: não dá para saber onde começa o próximo registro
+				job.report.setTotal(row);
+				job.reject(row, null, "Conteúdo malformado: "
+						+ ((e instanceof JsonProcessingException jpe) ? jpe.getOriginalMessage() : e.getMessage()));
+				return;
+			}
+			job.report.setTotal(row);
+			ProductDTO dto = mapper.map(row, value, job);
+			if (dto != null && validate(row, dto, job)) {
+				job.batch.add(dto);
+				job.batchRows.add(row);
+				if (job.batch.size() >= batchSize) {
+					saveBatch(job);
+				}
+			}
+		}
+	}
+
+	private ProductDTO fromCsv(long row, Map<String, String> values, Job job) {
+		ProductDTO dto = new ProductDTO();
+		dto.setName(values.get("name"));
+		dto.setDescription(values.get("description"));
+		dto.setImgUrl(blankToNull(values.get("imgUrl")));
+		String price = blankToNull(values.get("price"));
+		String date = blankToNull(values.get("date"));
+		try {
+			dto.setPrice(price == null ? null : Double.valueOf(price));
+			dto.setDate(date == null ? null : Instant.parse(date));
+		}
+		catch (NumberFormatException | DateTimeParseException e) {
+			job.reject(row, (e instanceof NumberFormatException) ? "price" : "date", "Valor inválido");
+			return null;
+		}
+		String categories = values.get("categories");
+		if (categories != null && !categories.isBlank()) {
+			for (String token : categories.split("\\|")) {
+				String value = token.trim();
+				dto.getCategories().add(value.chars().allMatch(Character::isDigit)
+						? new CategoryDTO(Long.valueOf(value), null) : new CategoryDTO(null, value));
+			}
+		}
+		return dto;
+	}
+
+	/*
+	 * Além das anotações do ProductDTO, confere as categorias contra a cópia em memória do
+	 * CategoryService: um id inexistente derrubaria o lote inteiro na FK. Categorias só com nome
+	 * (coluna do CSV) são resolvidas para o id aqui.
+	 */
+	private boolean validate(long row, ProductDTO dto, Job job) {
+		Set<ConstraintViolation<ProductDTO>> violations = validator.validate(dto);
+		if (!violations.isEmpty()) {
+			violations.forEach(v -> job.addError(row, v.getPropertyPath().toString(), v.getMessage()));
+			job.report.setFailed(job.report.getFailed() + 1);
+			return false;
+		}
+		Map<Long, String> byId = job.categoriesById();
+		Map<String, Long> byName = job.categoriesByName();
+		List<CategoryDTO> resolved = new ArrayList<>();
+		for (CategoryDTO cat : dto.getCategories()) {
+			Long id = (cat.getId() != null) ? cat.getId()
+					: (cat.getName() != null) ? byName.get(cat.getName().toLowerCase(Locale.ROOT)) : null;
+			if (id == null || !byId.containsKey(id)) {
+				job.reject(row, "categories", "Categoria não encontrada: "
+						+ (cat.getId() != null ? cat.getId() : cat.getName()));
+				return false;
+			}
+			resolved.add(new CategoryDTO(id, byId.get(id)));
+		}
+		dto.setCategories(resolved);
+		return true;
+	}
+
+	private void saveBatch(Job job) {
+		if (job.batch.isEmpty()) {
+			return;
+		}
+		List<ProductDTO> batch = new ArrayList<>(job.batch);
+		List<Long> rows = new ArrayList<>(job.batchRows);
+		job.batch.clear();
+		job.batchRows.clear();
+		save(batch, rows, job);
+	}
+
+	private void save(List<ProductDTO> batch, List<Long> rows, Job job) {
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				// categorias do lote inteiro em um SELECT ... IN
+				Map<Long, Category> categories = categoryResolver.resolve(batch.stream()
+						.flatMap(dto -> dto.getCategories().stream()).map(CategoryDTO::getId).toList());
+				for (ProductDTO dto : batch) {
+					Product entity = repository.save(toEntity(dto, categories));
+					nameIndex.put(entity.getId(), entity.getName());
+				}
+				repository.flush();
+			});
+			job.report.setImported(job.report.getImported() + batch.size());
+		}
+		catch (DataAccessException | InvalidReferenceException e) {
+			if (batch.size() == 1) {
+				if (e instanceof InvalidReferenceException invalid) {
+					// categoria excluída depois da validação contra a cópia em memória
+					job.reject(rows.get(0), invalid.getField(), invalid.getMessage());
+				}
+				else {
+					job.reject(rows.get(0), null, "Rejeitado pelo banco: "
+							+ ((DataAccessException) e).getMostSpecificCause().getMessage());
+				}
+				return;
+			}
+			// o lote voltou inteiro: grava linha a linha para aproveitar as boas e apontar as ruins
+			for (int i = 0; i < batch.size(); i++) {
+				save(List.of(batch.get(i)), List.of(rows.get(i)), job);
+			}
+		}
+	}
+
+	private Product toEntity(ProductDTO dto, Map<Long, Category> categories) {
+		Product entity = new Product();
+		entity.setName(dto.getName());
+		entity.setDescription(dto.getDescription());
+		entity.setDate(dto.getDate());
+		entity.setImgUrl(dto.getImgUrl());
+		entity.setPrice(dto.getPrice());
+		for (CategoryDTO catDto : dto.getCategories()) {
+			entity.getCategories().add(categories.get(catDto.getId()));
+		}
+		return entity;
+	}
+
+	private static String field(JsonMappingException e) {
+		List<JsonMappingException.Reference> path = e.getPath();
+		return path.isEmpty() ? null : path.get(path.size() - 1).getFieldName();
+	}
+
+	private static String blankToNull(String value) {
+		return (value == null || value.isBlank()) ? null : value.trim();
+	}
+
+	@FunctionalInterface
+	private interface RowMapper<T> {
+		ProductDTO map(long row, T value, Job job);
+	}
+
+	// estado de uma importação: relatório, lote corrente e categorias conhecidas
+	private final class Job {
+
+		private final ImportReportDTO report = new ImportReportDTO();
+
+		private final List<ProductDTO> batch = new ArrayList<>();
+
+		private final List<Long> batchRows = new ArrayList<>();
+
+		private Map<Long, String> categoriesById;
+
+		private Map<String, Long> categoriesByName;
+
+		void reject(long row, String field, String message) {
+			addError(row, field, message);
+			report.setFailed(report.getFailed() + 1);
+		}
+
+		void addError(long row, String field, String message) {
+			if (report.getErrors().size() < maxErrors) {
+				report.getErrors().add(new ImportErrorDTO(row, field, message));
+			}
+		}
+
+		Map<Long, String> categoriesById() {
+			if (categoriesById == null) {
+				categoriesById = new HashMap<>();
+				categoriesByName = new HashMap<>();
+				for (CategoryDTO cat : categoryService.findAllSnapshot().getCategories()) {
+					categoriesById.put(cat.getId(), cat.getName());
+					categoriesByName.put(cat.getName().toLowerCase(Locale.ROOT), cat.getId());
+				}
+			}
+			return categoriesById;
+		}
+
+		Map<String, Long> categoriesByName() {
+			categoriesById();
+			return categoriesByName;
+		}
+	}
+}
@@ -1,49 +1,302 @@
 package br.com.wepdev.dscatalog.services;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 import javax.persistence.EntityNotFoundException;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import br.com.wepdev.dscatalog.components.CatalogGeneration;
+import br.com.wepdev.dscatalog.components.CountCache;
+import br.com.wepdev.dscatalog.components.ProductNameIndex;
+import br.com.wepdev.dscatalog.config.CacheConfig;
 import br.com.wepdev.dscatalog.dto.CategoryDTO;
+import br.com.wepdev.dscatalog.dto.CategoryFacetDTO;
+import br.com.wepdev.dscatalog.dto.CursorPageDTO;
+import br.com.wepdev.dscatalog.dto.PriceAdjustmentDTO;
+import br.com.wepdev.dscatalog.dto.PriceAdjustmentResultDTO;
+import br.com.wepdev.dscatalog.dto.PriceBucketDTO;
+import br.com.wepdev.dscatalog.dto.ProductBatchDTO;
+import br.com.wepdev.dscatalog.dto.ProductCategoryDTO;
 import br.com.wepdev.dscatalog.dto.ProductDTO;
+import br.com.wepdev.dscatalog.dto.ProductPatchDTO;
+import br.com.wepdev.dscatalog.dto.ProductSuggestionDTO;
+import br.com.wepdev.dscatalog.dto.ProductSummaryDTO;
 import br.com.wepdev.dscatalog.domain.Category;
 import br.com.wepdev.dscatalog.domain.Product;
-import br.com.wepdev.dscatalog.repositories.CategoryRepository;
 import br.com.wepdev.dscatalog.repositories.ProductRepository;
 import br.com.wepdev.dscatalog.services.exceptions.DatabaseException;
+import br.com.wepdev.dscatalog.services.exceptions.InvalidParameterException;
 import br.com.wepdev.dscatalog.services.exceptions.ResourceNotFoundException;
 
 @Service
 public class ProductService {
 
+	static final String COUNT_KEY = "product:";
+
+	// campos aceitos em ?fields=
+	public static final Set<String> FIELDS = Set.of("id", "name", "description", "price", "imgUrl", "date", "categories");
+
+	private static final int MAX_BUCKETS = 100;
+
+	private static final int MAX_SUGGESTIONS = 50;
+
+	private static final int MAX_BATCH = 100;
+
+	private static final int MAX_CURSOR_SIZE = 100;
 
 	private final ProductRepository repository;
 
-	private final CategoryRepository categoryRepository;
+	private final CategoryResolver categoryResolver;
+
+	private final CountCache countCache;
 
-    public ProductService(ProductRepository repository, CategoryRepository categoryRepository) {
+	private final CatalogGeneration catalogGeneration;
+
+	private final ProductNameIndex nameIndex;
+
+    public ProductService(ProductRepository repository, CategoryResolver categoryResolver, CountCache countCache,
+            CatalogGeneration catalogGeneration, ProductNameIndex nameIndex) {
         this.repository = repository;
-        this.categoryRepository = categoryRepository;
+        this.categoryResolver = categoryResolver;
+        this.countCache = countCache;
+        this.catalogGeneration = catalogGeneration;
+        this.nameIndex = nameIndex;
     }
 
+	/**
+	 * Páginas repetidas saem do cache. A geração do catálogo entra na chave, então qualquer
+	 * escrita em produto ou categoria invalida todas as páginas de uma vez.
+	 */
+	@Cacheable(cacheNames = CacheConfig.PRODUCT_SEARCH,
+			key = "{@catalogGeneration.current(), #categoryId, #name, #minPrice, #maxPrice, #pageable}")
+	@Transactional(readOnly = true)
+	public Page<ProductDTO> findAllPaged(Long categoryId, String name, Double minPrice, Double maxPrice,
+			Pageable pageable) {
+
+		checkPriceRange(minPrice, maxPrice);
+		Long categoryFilter = (categoryId == 0) ? null : categoryId;
+		String pattern = "%" + name.toLowerCase(Locale.ROOT) + "%";
+		Page<Long> ids = repository.findIds(categoryFilter, pattern, minPrice, maxPrice, pageable);
+		return new PageImpl<>(findWithCategories(ids.getContent()), pageable, ids.getTotalElements());
+	}
+
+	@Transactional(readOnly = true)
+	public Page<ProductSummaryDTO> findAllSummaries(Long categoryId, String name, Pageable pageable) {
+
+		Long categoryFilter = (categoryId == 0) ? null : categoryId;
+		String pattern = "%" + name.toLowerCase(Locale.ROOT) + "%";
+		Page<ProductSummaryDTO> page = repository.findSummaries(categoryFilter, pattern, pageable);
+		if (page.hasContent()) {
+			Map<Long, ProductSummaryDTO> byId = new HashMap<>();
+			page.forEach(dto -> byId.put(dto.getId(), dto));
+			for (ProductCategoryDTO cat : repository.findCategoriesByProductIdIn(byId.keySet())) {
+				byId.get(cat.getProductId()).getCategories().add(new CategoryDTO(cat.getId(), cat.getName()));
+			}
+		}
+		return page;
+	}
+
+	/**
+	 * Quantos produtos atendem ao filtro de nome em cada categoria. A busca sem nome (a vitrine
+	 * aberta) é a mais comum e fica em cache até a próxima escrita no catálogo.
+	 */
+	@Cacheable(cacheNames = CacheConfig.PRODUCT_FACETS, key = "@catalogGeneration.current()", condition = "#name.isEmpty()")
+	@Transactional(readOnly = true)
+	public List<CategoryFacetDTO> findCategoryFacets(String name) {
+		return repository.countByCategory("%" + name.toLowerCase(Locale.ROOT) + "%");
+	}
+
+	/**
+	 * Listagem sem o COUNT por página. Com estimateTotal o total vem do {@link CountCache},
+	 * que reconta em segundo plano; sem ele a resposta é só um Slice (hasNext).
+	 */
+	@Transactional(readOnly = true)
+	public Slice<ProductDTO> findAllSliced(Long categoryId, String name, Double minPrice, Double maxPrice,
+			Pageable pageable, boolean estimateTotal) {
+
+		checkPriceRange(minPrice, maxPrice);
+		Long categoryFilter = (categoryId == 0) ? null : categoryId;
+		String pattern = "%" + name.toLowerCase(Locale.ROOT) + "%";
+		Slice<Long> ids = repository.findIdSlice(categoryFilter, pattern, minPrice, maxPrice, pageable);
+		List<ProductDTO> content = findWithCategories(ids.getContent());
+
+		if (!estimateTotal) {
+			return new SliceImpl<>(content, pageable, ids.hasNext());
+		}
+		return new PageImpl<>(content, pageable, estimatedTotal(categoryFilter, pattern, minPrice, maxPrice));
+	}
+
+	/**
+	 * Listagem com ?fields=: a primeira fase (ids) é a mesma das outras listagens e a segunda só
+	 * seleciona as colunas pedidas. A description, o campo mais pesado, e a consulta das
+	 * categorias ficam de fora quando não foram pedidos. Não passa pelo cache de buscas.
+	 */
+	@Transactional(readOnly = true)
+	public Slice<ProductDTO> findAllFields(Long categoryId, String name, Double minPrice, Double maxPrice,
+			FieldSet fields, CountMode mode, Pageable pageable) {
+
+		checkPriceRange(minPrice, maxPrice);
+		Long categoryFilter = (categoryId == 0) ? null : categoryId;
+		String pattern = "%" + name.toLowerCase(Locale.ROOT) + "%";
+		if (mode == CountMode.EXACT) {
+			Page<Long> ids = repository.findIds(categoryFilter, pattern, minPrice, maxPrice, pageable);
+			return new PageImpl<>(findWithFields(ids.getContent(), fields), pageable, ids.getTotalElements());
+		}
+		Slice<Long> ids = repository.findIdSlice(categoryFilter, pattern, minPrice, maxPrice, pageable);
+		List<ProductDTO> content = findWithFields(ids.getContent(), fields);
+		if (mode == CountMode.NONE) {
+			return new SliceImpl<>(content, pageable, ids.hasNext());
+		}
+		return new PageImpl<>(content, pageable, estimatedTotal(categoryFilter, pattern, minPrice, maxPrice));
+	}
+
+	private long estimatedTotal(Long categoryFilter, String pattern, Double minPrice, Double maxPrice) {
+		return countCache.get(COUNT_KEY + categoryFilter + ":" + pattern + ":" + minPrice + ":" + maxPrice,
+				() -> repository.countByFilter(categoryFilter, pattern, minPrice, maxPrice));
+	}
+
+	@Transactional(readOnly = true)
+	public List<PriceBucketDTO> findPriceHistogram(Long categoryId, String name, Double minPrice, Double maxPrice,
+			int buckets) {
+
+		checkPriceRange(minPrice, maxPrice);
+		if (buckets < 1 || buckets > MAX_BUCKETS) {
+			throw new InvalidParameterException("Quantidade de faixas inválida: " + buckets);
+		}
+		Long categoryFilter = (categoryId == 0) ? null : categoryId;
+		String pattern = "%" + name.toLowerCase(Locale.ROOT) + "%";
+		return repository.priceHistogram(categoryFilter, pattern, minPrice, maxPrice, buckets);
+	}
+
+	/**
+	 * Autocomplete por prefixo, servido pelo {@link ProductNameIndex} sem ir ao banco.
+	 */
+	public List<ProductSuggestionDTO> suggest(String prefix, int size) {
+		if (size < 1 || size > MAX_SUGGESTIONS) {
+			throw new InvalidParameterException("Tamanho inválido: " + size);
+		}
+		return nameIndex.suggest(prefix, size);
+	}
+
+	private static void checkPriceRange(Double minPrice, Double maxPrice) {
+		if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+			throw new InvalidParameterException("Faixa de preço inválida: " + minPrice + " > " + maxPrice);
+		}
+	}
+
+	/**
+	 * Segunda fase das buscas paginadas: carrega os produtos dos ids (já paginados e ordenados)
+	 * com as categorias em uma query e devolve na mesma ordem dos ids.
+	 */
+	private List<ProductDTO> findWithFields(List<Long> ids, FieldSet fields) {
+		if (fields.containsAll(FIELDS)) {
+			return findWithCategories(ids);
+		}
+		Map<Long, ProductDTO> byId = new HashMap<>();
+		repository.findFieldsByIdIn(ids, fields.getFields()).forEach(dto -> byId.put(dto.getId(), dto));
+		if (fields.contains("categories") && !byId.isEmpty()) {
+			for (ProductCategoryDTO cat : repository.findCategoriesByProductIdIn(byId.keySet())) {
+				byId.get(cat.getProductId()).getCategories().add(new CategoryDTO(cat.getId(), cat.getName()));
+			}
+		}
+		List<ProductDTO> result = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			ProductDTO dto = byId.get(id);
+			if (dto != null) {
+				result.add(dto);
+			}
+		}
+		return result;
+	}
+
+	private List<ProductDTO> findWithCategories(List<Long> ids) {
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		Map<Long, Product> products = new HashMap<>();
+		repository.findWithCategoriesByIdIn(ids).forEach(p -> products.put(p.getId(), p));
+
+		List<ProductDTO> result = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			Product p = products.get(id);
+			if (p != null) {
+				result.add(new ProductDTO(p, p.getCategories()));
+			}
+		}
+		return result;
+	}
+
 	@Transactional(readOnly = true)
-	public Page<ProductDTO> findAllPaged(Long categoryId, String name, Pageable pageable) {
+	public CursorPageDTO<ProductDTO> findAllByCursor(Long categoryId, String name, Double minPrice, Double maxPrice,
+			String token, String orderBy, int size) {
+
+		checkPriceRange(minPrice, maxPrice);
+		if (size < 1 || size > MAX_CURSOR_SIZE) {
+			throw new InvalidParameterException("Tamanho de página inválido: " + size);
+		}
+		ProductCursor cursor = (token == null || token.isEmpty()) ? ProductCursor.first(orderBy) : ProductCursor.decode(token);
 
 		Long categoryFilter = (categoryId == 0) ? null : categoryId;
-		Page<Product> page = repository.find(categoryFilter, name, pageable);
-		repository.findProductsWithCategories(page.getContent());
+		String pattern = "%" + name.toLowerCase(Locale.ROOT) + "%";
+		// busca uma linha a mais só para saber se existe próxima página, sem COUNT
+		Pageable limit = PageRequest.of(0, size + 1);
+
+		List<Product> list = ProductCursor.SORT_ID.equals(cursor.getSort())
+				? repository.findNextById(categoryFilter, pattern, minPrice, maxPrice, cursor.getLastId(), limit)
+				: repository.findNextByName(categoryFilter, pattern, minPrice, maxPrice,
+						cursor.getLastName(), cursor.getLastId(), limit);
 
-		return page.map(p -> new ProductDTO(p, p.getCategories()));
+		String next = null;
+		if (list.size() > size) {
+			list = list.subList(0, size);
+			next = ProductCursor.after(cursor.getSort(), list.get(size - 1)).encode();
+		}
+		if (!list.isEmpty()) {
+			repository.findProductsWithCategories(list);
+		}
+
+		List<ProductDTO> content = list.stream().map(p -> new ProductDTO(p, p.getCategories())).toList();
+		return new CursorPageDTO<>(content, next);
 	}
 
 
+	/**
+	 * Vários produtos de uma vez (carrinho, favoritos, comparação): produtos e categorias saem
+	 * da mesma query que a segunda fase da listagem usa. Ids repetidos contam uma vez só.
+	 */
+	@Transactional(readOnly = true)
+	public ProductBatchDTO findByIds(List<Long> ids) {
+		Set<Long> unique = new LinkedHashSet<>();
+		ids.stream().filter(Objects::nonNull).forEach(unique::add);
+		if (unique.size() > MAX_BATCH) {
+			throw new InvalidParameterException("Máximo de " + MAX_BATCH + " ids por consulta");
+		}
+		List<ProductDTO> content = findWithCategories(new ArrayList<>(unique));
+		content.forEach(dto -> unique.remove(dto.getId()));
+		return new ProductBatchDTO(content, new ArrayList<>(unique));
+	}
+
+	@Cacheable(CacheConfig.PRODUCTS)
 	@Transactional(readOnly = true)
 	public ProductDTO findById(Long id) {
 		Optional<Product> obj = repository.findById(id);
@@ -51,20 +304,36 @@ public class ProductService {
 		return new ProductDTO(entity, entity.getCategories());
 	}
 
+	@Transactional(readOnly = true)
+	public ProductDTO findById(Long id, FieldSet fields) {
+		List<ProductDTO> result = findWithFields(List.of(id), fields);
+		if (result.isEmpty()) {
+			throw new ResourceNotFoundException("Entidade não encontrada");
+		}
+		return result.get(0);
+	}
+
 	@Transactional
 	public ProductDTO insert(ProductDTO dto) {
 		Product entity = new Product();
 		copyDtoToEntity(dto, entity);
 		entity = repository.save(entity);
+		countCache.invalidate(COUNT_KEY);
+		catalogGeneration.bump();
+		nameIndex.put(entity.getId(), entity.getName());
 		return new ProductDTO(entity);
 	}
 
+	@CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
 	@Transactional
 	public ProductDTO update(Long id, ProductDTO dto) {
 		try {
 			Product entity = repository.getReferenceById(id);
 			copyDtoToEntity(dto, entity);
 			entity = repository.save(entity);
+			countCache.invalidate(COUNT_KEY);
+			catalogGeneration.bump();
+			nameIndex.put(entity.getId(), entity.getName());
 			return new ProductDTO(entity);
 		}
 		catch (EntityNotFoundException e) {
@@ -72,9 +341,70 @@ public class ProductService {
 		}		
 	}
 
+	/**
+	 * Atualização parcial: aplica só os campos informados e não carrega nem altera as categorias.
+	 */
+	@CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
+	@Transactional
+	public ProductDTO patch(Long id, ProductPatchDTO dto) {
+		Product entity = repository.findById(id)
+				.orElseThrow(() -> new ResourceNotFoundException("Id não encontrado " + id));
+		if (dto.getName() != null) {
+			entity.setName(dto.getName());
+		}
+		if (dto.getDescription() != null) {
+			entity.setDescription(dto.getDescription());
+		}
+		if (dto.getPrice() != null) {
+			entity.setPrice(dto.getPrice());
+		}
+		if (dto.getImgUrl() != null) {
+			entity.setImgUrl(dto.getImgUrl());
+		}
+		if (dto.getDate() != null) {
+			entity.setDate(dto.getDate());
+		}
+		countCache.invalidate(COUNT_KEY);
+		catalogGeneration.bump();
+		nameIndex.put(entity.getId(), entity.getName());
+		return new ProductDTO(entity);
+	}
+
+	/**
+	 * Reajuste de preço de uma categoria inteira em um UPDATE só, sem carregar os produtos.
+	 * Devolve quantas linhas mudaram.
+	 */
+	@CacheEvict(cacheNames = CacheConfig.PRODUCTS, allEntries = true)
+	@Transactional
+	public PriceAdjustmentResultDTO adjustPrices(PriceAdjustmentDTO dto) {
+
+		if ((dto.getPercent() == null) == (dto.getAmount() == null)) {
+			throw new InvalidParameterException("Informe percent ou amount, apenas um dos dois");
+		}
+		if (dto.getPercent() != null && dto.getPercent() <= -100.0) {
+			throw new InvalidParameterException("Percentual inválido: " + dto.getPercent());
+		}
+		double factor = (dto.getPercent() != null) ? 1.0 + dto.getPercent() / 100.0 : 1.0;
+		double amount = (dto.getAmount() != null) ? dto.getAmount() : 0.0;
+		String name = (dto.getName() == null) ? "" : dto.getName().trim();
+		String pattern = "%" + name.toLowerCase(Locale.ROOT) + "%";
+
+		int updated = repository.adjustPrices(dto.getCategoryId(), pattern, factor, amount);
+		if (updated > 0) {
+			// os totais estimados por faixa de preço mudam junto com os preços
+			countCache.invalidate(COUNT_KEY);
+			catalogGeneration.bump();
+		}
+		return new PriceAdjustmentResultDTO(updated);
+	}
+
+	@CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id")
 	public void delete(Long id) {
 		try {
 			repository.deleteById(id);
+			countCache.invalidate(COUNT_KEY);
+			catalogGeneration.bump();
+			nameIndex.delete(id);
 		}
 		catch (EmptyResultDataAccessException e) {
 			throw new ResourceNotFoundException("Id não encontrado " + id);
@@ -92,10 +422,15 @@ public class ProductService {
 		entity.setImgUrl(dto.getImgUrl());
 		entity.setPrice(dto.getPrice());
 		
-		entity.getCategories().clear();
-		for (CategoryDTO catDto : dto.getCategories()) {
-			Category category = categoryRepository.getReferenceById(catDto.getId());
-			entity.getCategories().add(category);			
-		}
+		// todas as categorias em um SELECT ... IN; id inexistente vira 422 antes de mexer na coleção
+		Map<Long, Category> categories = categoryResolver.resolve(
+				dto.getCategories().stream().map(CategoryDTO::getId).toList());
+		/*
+		 * Diferença em vez de clear() + addAll: só as ligações que saíram e as que entraram mudam
+		 * a coleção. Sem mudança ela nem fica suja, então o flush não passa pela tb_product_category
+		 * e a entrada do produto na região product.categories do cache continua valendo.
+		 */
+		entity.getCategories().removeIf(category -> !categories.containsKey(category.getId()));
+		entity.getCategories().addAll(categories.values());
 	}	
 }
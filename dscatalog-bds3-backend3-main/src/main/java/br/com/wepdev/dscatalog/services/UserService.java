@@ -1,6 +1,8 @@
 package br.com.wepdev.dscatalog.services;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import javax.persistence.EntityNotFoundException;
 
@@ -9,21 +11,26 @@ import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import br.com.wepdev.dscatalog.components.CountCache;
+import br.com.wepdev.dscatalog.components.RoleRegistry;
+import br.com.wepdev.dscatalog.config.PrimaryReads;
 import br.com.wepdev.dscatalog.dto.RoleDTO;
 import br.com.wepdev.dscatalog.dto.UserDTO;
 import br.com.wepdev.dscatalog.dto.UserInsertDTO;
 import br.com.wepdev.dscatalog.dto.UserUpdateDTO;
 import br.com.wepdev.dscatalog.domain.Role;
 import br.com.wepdev.dscatalog.domain.User;
-import br.com.wepdev.dscatalog.repositories.RoleRepository;
 import br.com.wepdev.dscatalog.repositories.UserRepository;
 import br.com.wepdev.dscatalog.services.exceptions.DatabaseException;
 import br.com.wepdev.dscatalog.services.exceptions.ResourceNotFoundException;
@@ -32,20 +39,35 @@ import br.com.wepdev.dscatalog.services.exceptions.ResourceNotFoundException;
 public class UserService implements UserDetailsService {
 	
 	private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
+	private static final String COUNT_KEY = "user";
+
+	// campos aceitos em ?fields=
+	public static final Set<String> FIELDS = Set.of("id", "firstName", "lastName", "email", "roles");
 	
 
-	private final BCryptPasswordEncoder passwordEncoder;
+	private final PasswordEncoder passwordEncoder;
 	
 
 	private final UserRepository repository;
 	
 
-	private final RoleRepository roleRepository;
+	private final RoleRegistry roleRegistry;
+
+	private final CountCache countCache;
 
-	public UserService(BCryptPasswordEncoder passwordEncoder, UserRepository repository, RoleRepository roleRepository) {
+	private final UserCache userCache;
+
+	private final PrimaryReads primaryReads;
+
+	public UserService(PasswordEncoder passwordEncoder, UserRepository repository, RoleRegistry roleRegistry,
+			CountCache countCache, UserCache userCache, PrimaryReads primaryReads) {
 		this.passwordEncoder = passwordEncoder;
 		this.repository = repository;
-		this.roleRepository = roleRepository;
+		this.roleRegistry = roleRegistry;
+		this.countCache = countCache;
+		this.userCache = userCache;
+		this.primaryReads = primaryReads;
 	}
 	
 	@Transactional(readOnly = true)
@@ -54,6 +76,44 @@ public class UserService implements UserDetailsService {
 		return list.map(UserDTO::new);
 	}
 
+	@Transactional(readOnly = true)
+	public Slice<UserDTO> findAllSliced(Pageable pageable, boolean estimateTotal) {
+		Slice<UserDTO> slice = repository.findAllBy(pageable).map(UserDTO::new);
+		if (!estimateTotal) {
+			return slice;
+		}
+		long total = countCache.get(COUNT_KEY, repository::count);
+		return new PageImpl<>(slice.getContent(), pageable, total);
+	}
+
+	/**
+	 * Listagem com ?fields=. Sem roles a consulta é uma projeção que não lê a senha nem dispara
+	 * a carga dos perfis de cada usuário.
+	 */
+	@Transactional(readOnly = true)
+	public Slice<UserDTO> findAllFields(FieldSet fields, CountMode mode, Pageable pageable) {
+		if (fields.contains("roles")) {
+			return (mode == CountMode.EXACT) ? findAllPaged(pageable) : findAllSliced(pageable, mode == CountMode.ESTIMATED);
+		}
+		if (mode == CountMode.EXACT) {
+			return repository.findSummaries(pageable);
+		}
+		Slice<UserDTO> slice = repository.findSummarySlice(pageable);
+		if (mode == CountMode.NONE) {
+			return slice;
+		}
+		long total = countCache.get(COUNT_KEY, repository::count);
+		return new PageImpl<>(slice.getContent(), pageable, total);
+	}
+
+	@Transactional(readOnly = true)
+	public UserDTO findById(Long id, FieldSet fields) {
+		if (fields.contains("roles")) {
+			return findById(id);
+		}
+		return repository.findSummaryById(id).orElseThrow(() -> new ResourceNotFoundException("Entidade não encontrada"));
+	}
+
 	@Transactional(readOnly = true)
 	public UserDTO findById(Long id) {
 		Optional<User> obj = repository.findById(id);
@@ -67,6 +127,7 @@ public class UserService implements UserDetailsService {
 		copyDtoToEntity(dto, entity);
 		entity.setPassword(passwordEncoder.encode(dto.getPassword()));
 		entity = repository.save(entity);
+		countCache.invalidate(COUNT_KEY);
 		return new UserDTO(entity);
 	}
 
@@ -74,8 +135,12 @@ public class UserService implements UserDetailsService {
 	public UserDTO update(Long id, UserUpdateDTO dto) {
 		try {
 			User entity = repository.getReferenceById(id);
+			String previousEmail = entity.getEmail();
 			copyDtoToEntity(dto, entity);
 			entity = repository.save(entity);
+			// o cache é transacional: as remoções só valem depois do commit
+			userCache.removeUserFromCache(previousEmail);
+			userCache.removeUserFromCache(entity.getEmail());
 			return new UserDTO(entity);
 		}
 		catch (EntityNotFoundException e) {
@@ -85,7 +150,10 @@ public class UserService implements UserDetailsService {
 
 	public void delete(Long id) {
 		try {
+			Optional<String> email = repository.findEmailById(id);
 			repository.deleteById(id);
+			email.ifPresent(userCache::removeUserFromCache);
+			countCache.invalidate(COUNT_KEY);
 		}
 		catch (EmptyResultDataAccessException e) {
 			throw new ResourceNotFoundException("Id não encontrado " + id);
@@ -101,22 +169,29 @@ public class UserService implements UserDetailsService {
 		entity.setLastName(dto.getLastName());
 		entity.setEmail(dto.getEmail());
 		
-		entity.getRoles().clear();
-		for (RoleDTO roleDto : dto.getRoles()) {
-			Role role = roleRepository.getReferenceById(roleDto.getId());
-			entity.getRoles().add(role);
-		}
+		// perfis vêm do registro em memória, sem consulta; só as ligações que mudaram são gravadas
+		List<Role> roles = roleRegistry.resolve(dto.getRoles().stream().map(RoleDTO::getId).toList());
+		entity.getRoles().removeIf(role -> !roles.contains(role));
+		entity.getRoles().addAll(roles);
 	}
 
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-		
-		User user = repository.findByEmail(username);
+
+		if (userCache.getUserFromCache(username) instanceof CatalogUserDetails cached) {
+			return cached.copy();
+		}
+		// vai para o cache de login: lê do primário para não guardar a senha ou os perfis antigos
+		User user = primaryReads.call(() -> repository.findByEmail(username));
 		if (user == null) {
-			logger.error("Usuario não encontrado: {}", username);
+			logger.warn("Usuario não encontrado: {}", username);
 			throw new UsernameNotFoundException("Email não encontrado");
 		}
-		logger.info("Usuario encontrado: {}", username);
-		return user;
+		logger.debug("Usuario encontrado: {}", username);
+		// no cache vai uma cópia imutável, não a entidade com a coleção de perfis
+		CatalogUserDetails details = new CatalogUserDetails(user.getId(), user.getFirstName(), user.getEmail(),
+				user.getPassword(), roleRegistry.authoritiesOf(user.getRoles()));
+		userCache.putUserInCache(details);
+		return details.copy();
 	}
 }
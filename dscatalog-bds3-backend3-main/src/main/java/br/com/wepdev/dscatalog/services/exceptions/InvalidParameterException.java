@@ -0,0 +1,12 @@
+package br.com.wepdev.dscatalog.services.exceptions;
+
+import java.io.Serial;
+
+public class InvalidParameterException extends RuntimeException {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	public InvalidParameterException(String msg) {
+		super(msg);
+	}
+}
@@ -0,0 +1,33 @@
+package br.com.wepdev.dscatalog.services.exceptions;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * O corpo referencia ids que não existem (categorias de um produto, por exemplo). Vira 422 com
+ * um erro por id, para o cliente corrigir tudo de uma vez.
+ */
+public class InvalidReferenceException extends RuntimeException {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private final String field;
+
+	private final List<Long> ids;
+
+	public InvalidReferenceException(String field, List<Long> ids) {
+		super("Ids não encontrados em " + field + ": " + ids);
+		this.field = field;
+		this.ids = Collections.unmodifiableList(new ArrayList<>(ids));
+	}
+
+	public String getField() {
+		return field;
+	}
+
+	public List<Long> getIds() {
+		return ids;
+	}
+}
@@ -0,0 +1,19 @@
+package br.com.wepdev.dscatalog.services.exceptions;
+
+import java.io.Serial;
+
+/**
+ * Recurso limitado saturado (o pool de hash de senha, por exemplo). Vira 503 com Retry-After: o
+ * cliente deve tentar de novo em instantes, e a requisição não ficou presa esperando.
+ */
+public class ServiceBusyException extends RuntimeException {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	// valor do cabeçalho Retry-After das respostas 503
+	public static final String RETRY_AFTER_SECONDS = "1";
+
+	public ServiceBusyException(String msg) {
+		super(msg);
+	}
+}
@@ -0,0 +1,9 @@
+-- Filtro por faixa de preço e ordenação por preço; o id desempata a paginação.
+CREATE INDEX idx_product_price
+    ON tb_product (price, id);
+
+-- Semi-join do filtro por categoria. A PK (product_id, category_id) não serve para buscar pela
+-- categoria; com este índice o banco resolve os produtos da categoria e ordena por preço
+-- percorrendo idx_product_price.
+CREATE INDEX idx_product_category_category
+    ON tb_product_category (category_id, product_id);
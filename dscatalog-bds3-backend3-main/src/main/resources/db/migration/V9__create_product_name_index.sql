@@ -0,0 +1,7 @@
+-- Paginação por cursor em ordem de nome: o predicado (name, id) > (:lastName, :lastId) e o
+-- ORDER BY name, id percorrem este índice em vez de ordenar a tabela a cada página. Ele também
+-- atende as buscas só por nome, então substitui o idx_product_name da V1.
+DROP INDEX idx_product_name;
+
+CREATE INDEX idx_product_name_id
+    ON tb_product (name, id);
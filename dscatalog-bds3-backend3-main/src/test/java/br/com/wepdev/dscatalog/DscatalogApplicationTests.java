@@ -1,15 +1,50 @@
 package br.com.wepdev.dscatalog;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
 
 @SpringBootTest
+@AutoConfigureMockMvc
 @ActiveProfiles("test")
 class DscatalogApplicationTests {
 
+	@Autowired
+	private MockMvc mockMvc;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void deveDeixarNavegadorGuardarLeituraComETag() throws Exception {
+		String etag = mockMvc.perform(get("/categories/1"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Cache-Control", "no-cache"))
+				.andExpect(header().doesNotExist("Pragma"))
+				.andReturn().getResponse().getHeader("ETag");
+
+		mockMvc.perform(get("/categories/1").header("If-None-Match", etag))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void deveManterNoStoreForaDasLeiturasDoCatalogo() throws Exception {
+		mockMvc.perform(get("/users"))
+				.andExpect(status().isUnauthorized())
+				.andExpect(header().string("Cache-Control", containsString("no-store")));
+		mockMvc.perform(get("/products/export"))
+				.andExpect(status().isUnauthorized())
+				.andExpect(header().string("Cache-Control", containsString("no-store")))
+				.andExpect(header().string("Cache-Control", not("no-cache")));
+	}
 }
@@ -0,0 +1,102 @@
+package br.com.wepdev.dscatalog.components;
+
+import br.com.wepdev.dscatalog.config.PrimaryReads;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountCacheTest {
+
+    private final CountCache cache = new CountCache(60, 100, 1, new PrimaryReads(null, null));
+
+    @AfterEach
+    void tearDown() {
+        cache.destroy();
+    }
+
+    @Test
+    void deveContarUmaVezEServirDoCache() {
+        AtomicInteger contagens = new AtomicInteger();
+
+        long primeiro = cache.get("product:a", () -> { contagens.incrementAndGet(); return 10L; });
+        long segundo = cache.get("product:a", () -> { contagens.incrementAndGet(); return 99L; });
+
+        assertThat(primeiro).isEqualTo(10L);
+        assertThat(segundo).isEqualTo(10L);
+        assertThat(contagens).hasValue(1);
+    }
+
+    @Test
+    void deveRecontarDepoisDeInvalidarPrefixo() {
+        cache.get("product:a", () -> 10L);
+        cache.get("category:a", () -> 3L);
+
+        cache.invalidate("product");
+
+        assertThat(cache.get("product:a", () -> 11L)).isEqualTo(11L);
+        assertThat(cache.get("category:a", () -> 4L)).isEqualTo(3L);
+    }
+
+    @Test
+    void naoDeveGuardarTotalContadoAntesDeUmaInvalidacao() {
+        // a escrita invalida enquanto a contagem antiga ainda está em andamento
+        long total = cache.get("product:a", () -> {
+            cache.invalidate("product");
+            return 10L;
+        });
+
+        assertThat(total).isEqualTo(10L);
+        assertThat(cache.get("product:a", () -> 11L)).isEqualTo(11L);
+    }
+
+    @Test
+    void deveInvalidarSoDepoisDoCommitDaEscrita() {
+        cache.get("product:a", () -> 10L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate("product");
+
+            // antes do commit uma contagem ainda veria os dados antigos
+            assertThat(cache.get("product:a", () -> 99L)).isEqualTo(10L);
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cache.get("product:a", () -> 11L)).isEqualTo(11L);
+    }
+
+    @Test
+    void deveRecontarEmThreadPropriaSemBloquearALeitura() throws Exception {
+        CountCache vencido = new CountCache(1, 100, 1, new PrimaryReads(null, null));
+        try {
+            vencido.get("product:a", () -> 10L);
+            Thread.sleep(1100); // passa do prazo de recontagem, ainda dentro da expiração (10x)
+            CountDownLatch recontou = new CountDownLatch(1);
+            AtomicReference<String> thread = new AtomicReference<>();
+
+            long servido = vencido.get("product:a", () -> {
+                thread.set(Thread.currentThread().getName());
+                recontou.countDown();
+                return 11L;
+            });
+
+            assertThat(servido).isEqualTo(10L);
+            assertThat(recontou.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(thread.get()).startsWith("count-refresh-");
+        }
+        finally {
+            vencido.destroy();
+        }
+    }
+}
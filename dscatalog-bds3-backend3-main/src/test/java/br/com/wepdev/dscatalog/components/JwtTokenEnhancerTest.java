@@ -0,0 +1,63 @@
+package br.com.wepdev.dscatalog.components;
+
+import br.com.wepdev.dscatalog.domain.User;
+import br.com.wepdev.dscatalog.repositories.UserRepository;
+import br.com.wepdev.dscatalog.services.CatalogUserDetails;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtTokenEnhancerTest {
+
+    @InjectMocks
+    private JwtTokenEnhancer enhancer;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private OAuth2Authentication authentication;
+
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        user = new User(1L, "Maria", "Silva", "maria@email.com", "senha");
+        when(authentication.getName()).thenReturn("maria@email.com");
+    }
+
+    @Test
+    void deveUsarUsuarioDoCacheDoLogin() {
+        when(userCache.getUserFromCache("maria@email.com"))
+                .thenReturn(new CatalogUserDetails(1L, "Maria", "maria@email.com", "senha", List.of()));
+
+        DefaultOAuth2AccessToken token = (DefaultOAuth2AccessToken) enhancer.enhance(new DefaultOAuth2AccessToken("x"), authentication);
+
+        assertThat(token.getAdditionalInformation()).containsEntry("userId", 1L).containsEntry("userFirstName", "Maria");
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void deveConsultarOBancoQuandoOCacheExpirou() {
+        when(userRepository.findByEmail("maria@email.com")).thenReturn(user);
+
+        DefaultOAuth2AccessToken token = (DefaultOAuth2AccessToken) enhancer.enhance(new DefaultOAuth2AccessToken("x"), authentication);
+
+        assertThat(token.getAdditionalInformation()).containsEntry("userId", 1L);
+    }
+}
@@ -0,0 +1,93 @@
+package br.com.wepdev.dscatalog.components;
+
+import br.com.wepdev.dscatalog.dto.CategoryDTO;
+import br.com.wepdev.dscatalog.dto.ProductDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compara o envelope enxuto (Accept: application/vnd.dscatalog.page+json) com a serialização
+ * padrão do PageImpl: operações por segundo, bytes alocados por operação e tamanho da resposta.
+ * Não roda no build normal:
+ * mvn test -Dtest=PageEnvelopeSerializerBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PageEnvelopeSerializerBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    @Test
+    void deveSerMaisRapidoEMenorQueOPageImpl() throws Exception {
+        Page<ProductDTO> page = pagina();
+        ObjectMapper mapper = mapper();
+
+        Resultado antes = medir("PageImpl", mapper, page);
+        Resultado depois = medir("envelope", mapper, PageEnvelope.of(page));
+
+        System.out.println(antes);
+        System.out.println(depois);
+        assertThat(depois.bytesResposta).isLessThan(antes.bytesResposta);
+        assertThat(depois.alocadoPorOp).isLessThan(antes.alocadoPorOp);
+    }
+
+    private static ObjectMapper mapper() {
+        return new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    // página típica da vitrine: 12 produtos com duas categorias, ordenada por nome
+    private static Page<ProductDTO> pagina() {
+        List<ProductDTO> content = new ArrayList<>();
+        for (long i = 1; i <= 12; i++) {
+            ProductDTO dto = new ProductDTO(i, "Produto " + i, "Descrição curta", 100.0 * i, "img-" + i + ".png",
+                    Instant.parse("2020-07-13T20:50:07Z"));
+            dto.getCategories().add(new CategoryDTO(1L, "Livros"));
+            dto.getCategories().add(new CategoryDTO(2L, "Eletrônicos"));
+            content.add(dto);
+        }
+        return new PageImpl<>(content, PageRequest.of(0, 12, Sort.by("name")), 25);
+    }
+
+    private static Resultado medir(String nome, ObjectMapper mapper, Object page) throws Exception {
+        int tamanho = mapper.writeValueAsBytes(page).length;
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += mapper.writeValueAsBytes(page).length;
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long alocadoAntes = threads.getThreadAllocatedBytes(thread);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += mapper.writeValueAsBytes(page).length;
+        }
+        long nanos = System.nanoTime() - inicio;
+        long alocado = threads.getThreadAllocatedBytes(thread) - alocadoAntes;
+        assertThat(sink).isPositive();
+        return new Resultado(nome, ITERATIONS * 1_000_000_000.0 / nanos, alocado / ITERATIONS, tamanho);
+    }
+
+    private record Resultado(String nome, double opsPorSegundo, long alocadoPorOp, int bytesResposta) {
+        @Override
+        public String toString() {
+            return String.format("%-9s %,12.0f ops/s %,9d B alocados/op %,7d B resposta",
+                    nome, opsPorSegundo, alocadoPorOp, bytesResposta);
+        }
+    }
+}
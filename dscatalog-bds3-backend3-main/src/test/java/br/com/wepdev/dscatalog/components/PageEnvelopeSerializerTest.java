@@ -0,0 +1,52 @@
+package br.com.wepdev.dscatalog.components;
+
+import br.com.wepdev.dscatalog.dto.CategoryDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageEnvelopeSerializerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void deveSerializarPageComTotal() throws Exception {
+        PageImpl<CategoryDTO> page = new PageImpl<>(List.of(new CategoryDTO(1L, "Livros")), PageRequest.of(2, 1), 5);
+
+        JsonNode json = mapper.readTree(mapper.writeValueAsString(PageEnvelope.of(page)));
+
+        assertThat(json.get("content").get(0).get("name").asText()).isEqualTo("Livros");
+        assertThat(json.get("page").asInt()).isEqualTo(2);
+        assertThat(json.get("size").asInt()).isEqualTo(1);
+        assertThat(json.get("total").asLong()).isEqualTo(5L);
+        assertThat(json.get("hasNext").asBoolean()).isTrue();
+        assertThat(json.has("pageable")).isFalse();
+        assertThat(json.has("sort")).isFalse();
+    }
+
+    @Test
+    void deveSerializarSliceSemTotal() throws Exception {
+        SliceImpl<CategoryDTO> slice = new SliceImpl<>(List.of(new CategoryDTO(1L, "Livros")), PageRequest.of(0, 10), false);
+
+        JsonNode json = mapper.readTree(mapper.writeValueAsString(PageEnvelope.of(slice)));
+
+        assertThat(json.has("total")).isFalse();
+        assertThat(json.get("hasNext").asBoolean()).isFalse();
+        assertThat(json.get("content")).hasSize(1);
+    }
+
+    @Test
+    void deveSerializarPaginaSemPaginacao() throws Exception {
+        JsonNode json = mapper.readTree(mapper.writeValueAsString(PageEnvelope.of(new PageImpl<>(List.of("a", "b")))));
+
+        assertThat(json.get("size").asInt()).isEqualTo(2);
+        assertThat(json.get("total").asLong()).isEqualTo(2L);
+    }
+}
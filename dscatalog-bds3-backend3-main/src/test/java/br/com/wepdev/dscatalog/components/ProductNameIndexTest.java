@@ -0,0 +1,85 @@
+package br.com.wepdev.dscatalog.components;
+
+import br.com.wepdev.dscatalog.config.PrimaryReads;
+import br.com.wepdev.dscatalog.dto.ProductSuggestionDTO;
+import br.com.wepdev.dscatalog.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductNameIndexTest {
+
+    @Mock
+    private ProductRepository repository;
+
+    private ProductNameIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new ProductNameIndex(repository, new PrimaryReads(null, null));
+        when(repository.findAllNames()).thenReturn(List.of(
+                new ProductSuggestionDTO(1L, "PC Gamer"),
+                new ProductSuggestionDTO(2L, "Gamer Chair"),
+                new ProductSuggestionDTO(3L, "Câmera Digital"),
+                new ProductSuggestionDTO(4L, "Smart TV")));
+    }
+
+    @Test
+    void deveSugerirPorInicioDeQualquerPalavra() {
+        assertThat(index.suggest("gam", 10)).extracting(ProductSuggestionDTO::getId).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void deveIgnorarAcentosEMaiusculas() {
+        assertThat(index.suggest("CAME", 10)).extracting(ProductSuggestionDTO::getName).containsExactly("Câmera Digital");
+        assertThat(index.suggest("  câm ", 10)).extracting(ProductSuggestionDTO::getId).containsExactly(3L);
+    }
+
+    @Test
+    void deveRespeitarLimiteENaoRepetirProduto() {
+        index.suggest("gamer", 10);
+        index.put(5L, "Gamer Gamer");
+
+        List<ProductSuggestionDTO> result = index.suggest("gamer", 10);
+
+        assertThat(result).extracting(ProductSuggestionDTO::getId).doesNotHaveDuplicates().hasSize(3);
+        assertThat(index.suggest("gamer", 1)).hasSize(1);
+    }
+
+    @Test
+    void deveCarregarDoBancoUmaVezSo() {
+        index.suggest("pc", 10);
+        index.suggest("smart", 10);
+        index.suggest("", 10);
+
+        verify(repository, times(1)).findAllNames();
+    }
+
+    @Test
+    void deveIgnorarEscritasAntesDaCarga() {
+        index.put(5L, "Produto Fantasma");
+
+        assertThat(index.suggest("fantasma", 10)).isEmpty();
+    }
+
+    @Test
+    void deveAtualizarIndiceNasEscritas() {
+        index.suggest("pc", 10);
+
+        index.put(1L, "Notebook Gamer");
+        index.delete(4L);
+        index.put(6L, "Smartphone");
+
+        assertThat(index.suggest("pc", 10)).isEmpty();
+        assertThat(index.suggest("note", 10)).extracting(ProductSuggestionDTO::getId).containsExactly(1L);
+        assertThat(index.suggest("smart", 10)).extracting(ProductSuggestionDTO::getName).containsExactly("Smartphone");
+    }
+}
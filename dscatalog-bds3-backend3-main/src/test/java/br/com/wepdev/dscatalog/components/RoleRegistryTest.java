@@ -0,0 +1,79 @@
+package br.com.wepdev.dscatalog.components;
+
+import br.com.wepdev.dscatalog.domain.Role;
+import br.com.wepdev.dscatalog.repositories.RoleRepository;
+import br.com.wepdev.dscatalog.services.exceptions.InvalidReferenceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleRegistryTest {
+
+    @InjectMocks
+    private RoleRegistry registry;
+
+    @Mock
+    private RoleRepository repository;
+
+    @BeforeEach
+    void setup() {
+        lenient().when(repository.findAll()).thenReturn(List.of(new Role(1L, "ROLE_OPERATOR"), new Role(2L, "ROLE_ADMIN")));
+    }
+
+    @Test
+    void deveResolverPerfisSemConsultarDeNovo() {
+        List<Role> first = registry.resolve(List.of(2L, 1L));
+        List<Role> second = registry.resolve(List.of(1L));
+
+        assertThat(first).extracting(Role::getAuthority).containsExactly("ROLE_ADMIN", "ROLE_OPERATOR");
+        assertThat(second.get(0)).isSameAs(first.get(1));
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void deveRecarregarUmaVezERejeitarIdInexistente() {
+        registry.resolve(List.of(1L));
+
+        assertThatThrownBy(() -> registry.resolve(List.of(1L, 9L)))
+                .isInstanceOfSatisfying(InvalidReferenceException.class, e -> {
+                    assertThat(e.getField()).isEqualTo("roles");
+                    assertThat(e.getIds()).containsExactly(9L);
+                });
+        verify(repository, times(2)).findAll();
+    }
+
+    @Test
+    void deveEnxergarPerfilCriadoDepoisDaCarga() {
+        registry.resolve(List.of(1L));
+        when(repository.findAll()).thenReturn(List.of(new Role(1L, "ROLE_OPERATOR"), new Role(3L, "ROLE_AUDITOR")));
+
+        assertThat(registry.resolve(List.of(3L))).extracting(Role::getAuthority).containsExactly("ROLE_AUDITOR");
+    }
+
+    @Test
+    void deveDevolverAMesmaListaDeAuthoritiesParaAMesmaCombinacao() {
+        List<GrantedAuthority> first = registry.authoritiesOf(Set.of(new Role(1L, "ROLE_OPERATOR"), new Role(2L, "ROLE_ADMIN")));
+        List<GrantedAuthority> second = registry.authoritiesOf(List.of(new Role(2L, "ROLE_ADMIN"), new Role(1L, "ROLE_OPERATOR")));
+
+        assertThat(second).isSameAs(first);
+        assertThat(first).extracting(GrantedAuthority::getAuthority).containsExactlyInAnyOrder("ROLE_OPERATOR", "ROLE_ADMIN");
+    }
+
+    @Test
+    void deveConstruirAuthorityDePerfilDesconhecido() {
+        List<GrantedAuthority> result = registry.authoritiesOf(List.of(new Role(7L, "ROLE_NOVO")));
+
+        assertThat(result).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_NOVO");
+    }
+}
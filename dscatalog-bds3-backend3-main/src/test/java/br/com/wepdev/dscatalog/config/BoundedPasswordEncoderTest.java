@@ -0,0 +1,124 @@
+package br.com.wepdev.dscatalog.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import br.com.wepdev.dscatalog.services.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private final CountDownLatch ocupado = new CountDownLatch(1);
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        if (encoder != null) {
+            encoder.destroy();
+        }
+    }
+
+    // delegate que segura a thread do pool até o teste liberar
+    private PasswordEncoder lento() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                ocupado.countDown();
+                try {
+                    liberar.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals(encode(rawPassword));
+            }
+        };
+    }
+
+    @Test
+    void deveDelegarEncodeEMatchesAoBCrypt() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1, 5000);
+
+        String hash = encoder.encode("123456");
+
+        assertThat(hash).startsWith("$2a$04$");
+        assertThat(encoder.matches("123456", hash)).isTrue();
+        assertThat(encoder.matches("errada", hash)).isFalse();
+    }
+
+    @Test
+    void deveRecusarNaHoraQuandoPoolEFilaEstaoCheios() throws Exception {
+        encoder = new BoundedPasswordEncoder(lento(), 1, 1, 5000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+
+        CompletableFuture<String> executando = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        assertThat(ocupado.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> naFila = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        while (registry.get("password.hash.queue").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+
+        assertThatThrownBy(() -> encoder.encode("c")).isInstanceOf(ServiceBusyException.class);
+        assertThat(registry.get("password.hash.rejected").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("password.hash.active").gauge().value()).isEqualTo(1.0);
+
+        liberar.countDown();
+        assertThat(executando.get(5, TimeUnit.SECONDS)).isEqualTo("hash:a");
+        assertThat(naFila.get(5, TimeUnit.SECONDS)).isEqualTo("hash:b");
+    }
+
+    @Test
+    void deveResponderOcupadoQuandoOHashPassaDoTimeout() throws Exception {
+        encoder = new BoundedPasswordEncoder(lento(), 1, 1, 50);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+
+        assertThatThrownBy(() -> encoder.encode("a")).isInstanceOf(ServiceBusyException.class);
+        assertThat(registry.get("password.hash.timeout").counter().count()).isEqualTo(1.0);
+
+        // a tarefa cancelada libera a thread do pool
+        while (registry.get("password.hash.active").gauge().value() > 0) {
+            Thread.sleep(5);
+        }
+        liberar.countDown();
+        assertThat(encoder.encode("b")).isEqualTo("hash:b");
+    }
+
+    @Test
+    void deveMedirLatenciaDoHashPorOperacao() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1, 5000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+
+        String hash = encoder.encode("123456");
+        encoder.matches("123456", hash);
+        encoder.matches("errada", hash);
+
+        assertThat(registry.get("password.hash").tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(registry.get("password.hash").tag("operation", "matches").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void devePropagarExcecaoDoDelegate() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1, 5000);
+
+        assertThatThrownBy(() -> encoder.encode(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
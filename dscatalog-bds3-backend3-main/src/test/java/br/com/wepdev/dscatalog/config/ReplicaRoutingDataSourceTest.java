@@ -0,0 +1,230 @@
+package br.com.wepdev.dscatalog.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dois bancos H2 embutidos fazem o papel de primário e réplica; cada um tem uma linha dizendo
+ * qual é, então a consulta mostra para onde a transação foi roteada.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate writeTx;
+    private TransactionTemplate readTx;
+    private PrimaryReads primaryReads;
+
+    @BeforeEach
+    void setup() {
+        primary = banco("primary");
+        replica = banco("replica");
+        rotear(Duration.ofMinutes(1));
+    }
+
+    private void rotear(Duration janela) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(janela);
+        routing.setTargetDataSources(Map.of(ReplicaRoutingDataSource.PRIMARY, primary,
+                ReplicaRoutingDataSource.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTx = new TransactionTemplate(transactionManager);
+        readTx = new TransactionTemplate(transactionManager);
+        readTx.setReadOnly(true);
+        primaryReads = new PrimaryReads(transactionManager, ReplicaRoutingDataSource.from(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    private static EmbeddedDatabase banco(String nome) {
+        EmbeddedDatabase db = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(EmbeddedDatabaseType.H2).build();
+        JdbcTemplate template = new JdbcTemplate(db);
+        template.execute("CREATE TABLE tb_origem (nome VARCHAR(20))");
+        template.update("INSERT INTO tb_origem VALUES (?)", nome);
+        return db;
+    }
+
+    private String origem(TransactionTemplate tx) {
+        return tx.execute(status -> jdbc.queryForObject("SELECT nome FROM tb_origem", String.class));
+    }
+
+    private void escrever() {
+        writeTx.executeWithoutResult(status -> jdbc.update("UPDATE tb_origem SET nome = nome"));
+    }
+
+    private void autenticar(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+
+    @Test
+    void deveLerDaReplicaEmTransacaoSomenteLeitura() {
+        assertThat(origem(readTx)).isEqualTo("replica");
+    }
+
+    @Test
+    void deveUsarPrimarioEmTransacaoDeEscritaESemTransacao() {
+        assertThat(origem(writeTx)).isEqualTo("primary");
+        assertThat(jdbc.queryForObject("SELECT nome FROM tb_origem", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void deveLerDoPrimarioLogoAposAPropriaEscrita() {
+        autenticar("maria@email.com");
+        escrever();
+
+        assertThat(origem(readTx)).isEqualTo("primary");
+
+        autenticar("alex@email.com");
+        assertThat(origem(readTx)).isEqualTo("replica");
+    }
+
+    @Test
+    void deveCarregarCacheDoPrimarioParaOutroClienteLogoAposEscrita() {
+        autenticar("maria@email.com");
+        escrever();
+
+        // outro cliente: a leitura comum segue na réplica, a que vai para o cache não
+        autenticar("alex@email.com");
+        assertThat(origem(readTx)).isEqualTo("replica");
+        assertThat(primaryReads.call(() -> origem(readTx))).isEqualTo("primary");
+        assertThat(primaryReads.call(() -> jdbc.queryForObject("SELECT nome FROM tb_origem", String.class)))
+                .isEqualTo("primary");
+    }
+
+    @Test
+    void deveCarregarCacheDaReplicaQuandoNaoHouveEscritaRecente() {
+        assertThat(primaryReads.call(() -> origem(readTx))).isEqualTo("replica");
+
+        // o @Cacheable marca a thread da mesma forma; sem escrita recente a marca não pesa
+        boolean entered = ReplicaRoutingDataSource.enterPrimaryRead();
+        try {
+            assertThat(origem(readTx)).isEqualTo("replica");
+        }
+        finally {
+            ReplicaRoutingDataSource.exitPrimaryRead(entered);
+        }
+    }
+
+    @Test
+    void deveVoltarACarregarCacheDaReplicaQuandoAJanelaFecha() throws InterruptedException {
+        rotear(Duration.ofMillis(200));
+        escrever();
+        assertThat(primaryReads.call(() -> origem(readTx))).isEqualTo("primary");
+
+        Thread.sleep(300);
+        assertThat(primaryReads.call(() -> origem(readTx))).isEqualTo("replica");
+    }
+
+    @Test
+    void deveAbrirTransacaoNovaNoPrimarioQuandoAReplicaJaFoiUsada() {
+        escrever();
+        List<String> origens = readTx.execute(status -> List.of(
+                jdbc.queryForObject("SELECT nome FROM tb_origem", String.class),
+                primaryReads.call(() -> jdbc.queryForObject("SELECT nome FROM tb_origem", String.class)),
+                jdbc.queryForObject("SELECT nome FROM tb_origem", String.class)));
+
+        assertThat(origens).containsExactly("replica", "primary", "replica");
+    }
+
+    @Test
+    void deveExecutarMetodoCacheableNoPrimarioQuandoNaoEstaEmCache() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+                .withUserConfiguration(ReplicaDataSourceConfig.class, CargaEmCache.class)
+                .withPropertyValues("spring.datasource.url=jdbc:h2:mem:primario",
+                        "catalog.replica.datasource.jdbc-url=jdbc:h2:mem:replica")
+                .run(context -> {
+                    CargaEmCache carga = context.getBean(CargaEmCache.class);
+                    assertThat(carga.carregar()).isTrue();
+                    assertThat(ReplicaRoutingDataSource.isPrimaryRead()).isFalse();
+                });
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CargaEmCache {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+
+        @Cacheable("carga")
+        public boolean carregar() {
+            return ReplicaRoutingDataSource.isPrimaryRead();
+        }
+    }
+
+    @Test
+    void naoDeveAbrirJanelaQuandoEscritaVoltaAtras() {
+        autenticar("maria@email.com");
+        writeTx.executeWithoutResult(status -> {
+            jdbc.update("UPDATE tb_origem SET nome = nome");
+            status.setRollbackOnly();
+        });
+
+        assertThat(origem(readTx)).isEqualTo("replica");
+    }
+
+    @Test
+    void deveManterUmPoolSoQuandoReplicaNaoConfigurada() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+                .withUserConfiguration(ReplicaDataSourceConfig.class)
+                .withPropertyValues("spring.datasource.url=jdbc:h2:mem:primario")
+                .run(context -> assertThat(context.getBean(DataSource.class))
+                        .isNotInstanceOf(LazyConnectionDataSourceProxy.class));
+    }
+
+    @Test
+    void deveRotearQuandoReplicaConfigurada() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+                .withUserConfiguration(ReplicaDataSourceConfig.class)
+                .withPropertyValues("spring.datasource.url=jdbc:h2:mem:primario",
+                        "catalog.replica.datasource.jdbc-url=jdbc:h2:mem:replica")
+                .run(context -> {
+                    assertThat(context.getBean(DataSource.class)).isInstanceOf(LazyConnectionDataSourceProxy.class);
+                    DataSource target = ((LazyConnectionDataSourceProxy) context.getBean(DataSource.class))
+                            .getTargetDataSource();
+                    assertThat(target).isInstanceOf(ReplicaRoutingDataSource.class);
+                });
+    }
+}
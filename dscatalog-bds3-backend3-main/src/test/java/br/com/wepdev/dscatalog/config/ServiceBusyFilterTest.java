@@ -0,0 +1,75 @@
+package br.com.wepdev.dscatalog.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.oauth2.common.exceptions.OAuth2Exception;
+import org.springframework.web.util.NestedServletException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import br.com.wepdev.dscatalog.services.exceptions.ServiceBusyException;
+
+import javax.servlet.ServletException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Os dois caminhos da ServiceBusyException fora do ControllerAdvice: o filtro (client secret na
+ * cadeia do Spring Security) e o tradutor do /oauth/token (senha do usuário).
+ */
+class ServiceBusyFilterTest {
+
+    private final ServiceBusyFilter filter = new ServiceBusyFilter(new ObjectMapper().registerModule(new JavaTimeModule()));
+
+    @Test
+    void deveResponder503QuandoCadeiaLancaServiceBusy() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/oauth/token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            throw new NestedServletException("falha", new ServiceBusyException("Servidor ocupado"));
+        });
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isEqualTo(ServiceBusyException.RETRY_AFTER_SECONDS);
+        assertThat(response.getContentAsString()).contains("\"status\":503").contains("Servidor ocupado");
+    }
+
+    @Test
+    void deveRepassarOutrasExcecoes() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThatThrownBy(() -> filter.doFilter(request, response, (req, res) -> {
+            throw new ServletException("outra");
+        })).isInstanceOf(ServletException.class).hasMessage("outra");
+    }
+
+    @Test
+    void deveTraduzirServiceBusyDoTokenEndpointEm503() throws Exception {
+        BusyAwareExceptionTranslator translator = new BusyAwareExceptionTranslator();
+
+        ResponseEntity<OAuth2Exception> response = translator.translate(
+                new InternalAuthenticationServiceException("falha", new ServiceBusyException("Servidor ocupado")));
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(503);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo(ServiceBusyException.RETRY_AFTER_SECONDS);
+        assertThat(response.getBody().getOAuth2ErrorCode()).isEqualTo("temporarily_unavailable");
+    }
+
+    @Test
+    void deveManterTraducaoPadraoParaCredenciaisInvalidas() throws Exception {
+        BusyAwareExceptionTranslator translator = new BusyAwareExceptionTranslator();
+
+        ResponseEntity<OAuth2Exception> response = translator.translate(new BadCredentialsException("Bad credentials"));
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(401);
+        assertThat(response.getBody().getOAuth2ErrorCode()).isEqualTo("unauthorized");
+    }
+}
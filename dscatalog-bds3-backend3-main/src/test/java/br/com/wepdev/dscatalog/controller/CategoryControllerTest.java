@@ -1,16 +1,20 @@
 package br.com.wepdev.dscatalog.controller;
 
+import br.com.wepdev.dscatalog.components.CatalogGeneration;
 import br.com.wepdev.dscatalog.dto.CategoryDTO;
 import br.com.wepdev.dscatalog.services.CategoryService;
+import br.com.wepdev.dscatalog.services.CategorySnapshot;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -20,6 +24,7 @@ import java.util.List;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -30,7 +35,11 @@ class CategoryControllerTest {
 
     private MockMvc mockMvc;
 
-    private ObjectMapper objectMapper;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private CatalogGeneration catalogGeneration = new CatalogGeneration();
 
     @Mock
     private CategoryService service;
@@ -41,8 +50,6 @@ class CategoryControllerTest {
 
     @BeforeEach
     void setup() {
-        objectMapper = new ObjectMapper();
-
         mockMvc = MockMvcBuilders
                 .standaloneSetup(controller)
                 .setCustomArgumentResolvers(
@@ -65,6 +72,35 @@ class CategoryControllerTest {
                 .andExpect(jsonPath("$.content[0].name").value("Livros"));
     }
 
+    @Test
+    void deveBuscarCategoriasSemContagem() throws Exception {
+        when(service.findAllSliced(any(), eq(false)))
+                .thenReturn(new SliceImpl<>(List.of(new CategoryDTO(1L, "Livros"))));
+
+        mockMvc.perform(get("/categories").param("count", "none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Livros"))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void deveBuscarListaCompletaJaSerializada() throws Exception {
+        when(service.findAllSnapshot()).thenReturn(CategorySnapshot.of(List.of(new CategoryDTO(1L, "Livros"))));
+
+        mockMvc.perform(get("/categories/all"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].name").value("Livros"));
+    }
+
+    @Test
+    void deveRetornar304NaListaCompletaQuandoETagNaoMudou() throws Exception {
+        mockMvc.perform(get("/categories/all").header("If-None-Match", catalogGeneration.etag()))
+                .andExpect(status().isNotModified());
+
+        verifyNoInteractions(service);
+    }
+
     @Test
     void deveBuscarCategoriaPorId() throws Exception {
         when(service.findById(1L))
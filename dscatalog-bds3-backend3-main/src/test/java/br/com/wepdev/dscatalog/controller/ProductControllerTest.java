@@ -1,24 +1,45 @@
 package br.com.wepdev.dscatalog.controller;
 
+import br.com.wepdev.dscatalog.components.CatalogGeneration;
 import br.com.wepdev.dscatalog.controller.exceptions.ResourceExceptionHandler;
 import br.com.wepdev.dscatalog.dto.CategoryDTO;
+import br.com.wepdev.dscatalog.dto.CategoryFacetDTO;
+import br.com.wepdev.dscatalog.dto.CursorPageDTO;
+import br.com.wepdev.dscatalog.dto.ImportErrorDTO;
+import br.com.wepdev.dscatalog.dto.ImportReportDTO;
+import br.com.wepdev.dscatalog.dto.PriceBucketDTO;
+import br.com.wepdev.dscatalog.dto.ProductBatchDTO;
 import br.com.wepdev.dscatalog.dto.ProductDTO;
+import br.com.wepdev.dscatalog.dto.ProductPatchDTO;
+import br.com.wepdev.dscatalog.dto.ProductSuggestionDTO;
+import br.com.wepdev.dscatalog.dto.ProductSummaryDTO;
+import br.com.wepdev.dscatalog.services.CountMode;
+import br.com.wepdev.dscatalog.services.ExportFormat;
+import br.com.wepdev.dscatalog.services.FieldSet;
+import br.com.wepdev.dscatalog.services.ProductExportService;
+import br.com.wepdev.dscatalog.services.ProductImportService;
 import br.com.wepdev.dscatalog.services.ProductService;
+import br.com.wepdev.dscatalog.services.exceptions.InvalidParameterException;
+import br.com.wepdev.dscatalog.services.exceptions.InvalidReferenceException;
 import br.com.wepdev.dscatalog.services.exceptions.ResourceNotFoundException;
+import br.com.wepdev.dscatalog.services.exceptions.ServiceBusyException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
+import java.io.OutputStream;
 import java.time.Instant;
 import java.util.List;
 
@@ -38,6 +59,14 @@ class ProductControllerTest {
     @Mock
     private ProductService service;
 
+    @Mock
+    private ProductExportService exportService;
+
+    @Mock
+    private ProductImportService importService;
+
+    private final CatalogGeneration catalogGeneration = new CatalogGeneration();
+
     @BeforeEach
     void setup() {
         objectMapper = new ObjectMapper();
@@ -46,7 +75,7 @@ class ProductControllerTest {
         LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
         validator.afterPropertiesSet();
 
-        ProductController controller = new ProductController(service);
+        ProductController controller = new ProductController(service, exportService, importService, catalogGeneration, objectMapper);
 
         mockMvc = MockMvcBuilders
                 .standaloneSetup(controller)
@@ -86,7 +115,7 @@ class ProductControllerTest {
                 1
         );
 
-        when(service.findAllPaged(eq(0L), eq(""), any(Pageable.class)))
+        when(service.findAllPaged(eq(0L), eq(""), isNull(), isNull(), any(Pageable.class)))
                 .thenReturn(page);
 
         mockMvc.perform(get("/products"))
@@ -103,7 +132,7 @@ class ProductControllerTest {
                 1
         );
 
-        when(service.findAllPaged(eq(1L), eq("tv"), any(Pageable.class)))
+        when(service.findAllPaged(eq(1L), eq("tv"), isNull(), isNull(), any(Pageable.class)))
                 .thenReturn(page);
 
         mockMvc.perform(get("/products")
@@ -115,6 +144,129 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.content").isArray());
     }
 
+    @Test
+    void deveRepassarFaixaDePrecoNaBusca() throws Exception {
+        when(service.findAllPaged(eq(0L), eq(""), eq(100.0), eq(500.0), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(criarDtoValido())));
+
+        mockMvc.perform(get("/products")
+                        .param("minPrice", "100")
+                        .param("maxPrice", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Produto Teste"));
+    }
+
+    @Test
+    void deveBuscarHistogramaDePrecosComETag() throws Exception {
+        when(service.findPriceHistogram(0L, "", null, null, 10))
+                .thenReturn(List.of(new PriceBucketDTO(0.0, 100.0, 4L)));
+
+        mockMvc.perform(get("/products/price-histogram"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$[0].from").value(0.0))
+                .andExpect(jsonPath("$[0].count").value(4));
+    }
+
+    @Test
+    void deveSugerirNomesPorPrefixo() throws Exception {
+        when(service.suggest("gam", 10)).thenReturn(List.of(new ProductSuggestionDTO(1L, "PC Gamer")));
+
+        mockMvc.perform(get("/products/suggest").param("q", "gam"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].name").value("PC Gamer"));
+    }
+
+    @Test
+    void deveBuscarProdutosEmLote() throws Exception {
+        ProductDTO dto = criarDtoValido();
+        dto.setId(3L);
+        when(service.findByIds(List.of(3L, 7L))).thenReturn(new ProductBatchDTO(List.of(dto), List.of(7L)));
+
+        mockMvc.perform(get("/products").param("ids", "3,7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(3))
+                .andExpect(jsonPath("$.missing[0]").value(7));
+
+        verify(service, never()).findAllPaged(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void deveCortarCamposNaoPedidosDaListagem() throws Exception {
+        ProductDTO dto = criarDtoValido();
+        dto.setId(1L);
+        when(service.findAllFields(eq(0L), eq(""), isNull(), isNull(), any(FieldSet.class), eq(CountMode.EXACT),
+                any(Pageable.class))).thenReturn(new PageImpl<>(List.of(dto)));
+
+        mockMvc.perform(get("/products").param("fields", "name,price"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.content[0].name").value("Produto Teste"))
+                .andExpect(jsonPath("$.content[0].description").doesNotExist())
+                .andExpect(jsonPath("$.content[0].categories").doesNotExist());
+
+        verify(service, never()).findAllPaged(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void deveRetornar400QuandoCampoDeProdutoDesconhecido() throws Exception {
+        mockMvc.perform(get("/products/1").param("fields", "name,estoque"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Parâmetro inválido"));
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void deveBuscarResumosSemDescricao() throws Exception {
+        ProductSummaryDTO summary = new ProductSummaryDTO(1L, "Produto Teste", 100.0, "img.png", null);
+        summary.getCategories().add(new CategoryDTO(1L, "Categoria 1"));
+        when(service.findAllSummaries(eq(0L), eq(""), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(summary)));
+
+        mockMvc.perform(get("/products/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Produto Teste"))
+                .andExpect(jsonPath("$.content[0].categories[0].name").value("Categoria 1"))
+                .andExpect(jsonPath("$.content[0].description").doesNotExist());
+    }
+
+    @Test
+    void deveBuscarProdutosPorCursor() throws Exception {
+        when(service.findAllByCursor(0L, "", null, null, "", "name", 20))
+                .thenReturn(new CursorPageDTO<>(List.of(criarDtoValido()), "abc"));
+
+        mockMvc.perform(get("/products").param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Produto Teste"))
+                .andExpect(jsonPath("$.next").value("abc"));
+
+        verify(service, never()).findAllPaged(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void deveOrdenarCursorPorOrderBy() throws Exception {
+        when(service.findAllByCursor(0L, "", null, null, "", "id", 20))
+                .thenReturn(new CursorPageDTO<>(List.of(criarDtoValido()), null));
+
+        mockMvc.perform(get("/products").param("cursor", "").param("orderBy", "id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Produto Teste"));
+    }
+
+    @Test
+    void deveRetornar400_quandoCursorInvalido() throws Exception {
+        when(service.findAllByCursor(0L, "", null, null, "xyz", "name", 20))
+                .thenThrow(new InvalidParameterException("Cursor inválido"));
+
+        mockMvc.perform(get("/products").param("cursor", "xyz"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Parâmetro inválido"));
+    }
+
     @Test
     void deveBuscarProdutoPorId_quandoExistir() throws Exception {
         ProductDTO dto = criarDtoValido();
@@ -128,6 +280,115 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.name").value("Produto Teste"));
     }
 
+    @Test
+    void deveRetornar304_quandoETagNaoMudou() throws Exception {
+        ProductDTO dto = criarDtoValido();
+        dto.setId(1L);
+        when(service.findById(1L)).thenReturn(dto);
+
+        String etag = mockMvc.perform(get("/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/products/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        catalogGeneration.bump();
+
+        mockMvc.perform(get("/products/1").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+        verify(service, times(2)).findById(1L);
+    }
+
+    @Test
+    void deveRetornar304NaListagemSemChamarService() throws Exception {
+        String etag = catalogGeneration.etag();
+
+        mockMvc.perform(get("/products").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void deveExportarCatalogoEmStreaming() throws Exception {
+        doAnswer(inv -> {
+            inv.getArgument(3, OutputStream.class).write("{\"id\":1}\n".getBytes());
+            return 1L;
+        }).when(exportService).export(eq(2L), eq("pc"), eq(ExportFormat.NDJSON), any());
+
+        MvcResult result = mockMvc.perform(get("/products/export").param("categoryId", "2").param("name", " pc "))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    @Test
+    void deveDevolverVagaDaExportacaoAoTerminar() throws Exception {
+        MvcResult result = mockMvc.perform(get("/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        InOrder ordem = inOrder(exportService);
+        ordem.verify(exportService).acquire();
+        ordem.verify(exportService).export(eq(0L), eq(""), eq(ExportFormat.NDJSON), any());
+        ordem.verify(exportService).release();
+    }
+
+    @Test
+    void deveRetornar503_quandoLimiteDeExportacoesAtingido() throws Exception {
+        doThrow(new ServiceBusyException("ocupado")).when(exportService).acquire();
+
+        mockMvc.perform(get("/products/export"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", ServiceBusyException.RETRY_AFTER_SECONDS));
+
+        verify(exportService, never()).export(any(), any(), any(), any());
+    }
+
+    @Test
+    void deveRetornar400_quandoFormatoDeExportacaoInvalido() throws Exception {
+        mockMvc.perform(get("/products/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(exportService);
+    }
+
+    @Test
+    void deveImportarCsvERetornarRelatorio() throws Exception {
+        ImportReportDTO report = new ImportReportDTO();
+        report.setTotal(2);
+        report.setImported(1);
+        report.setFailed(1);
+        report.getErrors().add(new ImportErrorDTO(2, "price", "Valor inválido"));
+        when(importService.importProducts(any(), eq(ExportFormat.CSV))).thenReturn(report);
+
+        mockMvc.perform(post("/products/import")
+                        .contentType("text/csv")
+                        .content("name,description,price,imgUrl,date,categories\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].field").value("price"));
+    }
+
+    @Test
+    void deveBuscarFacetasPorCategoria() throws Exception {
+        when(service.findCategoryFacets("tv")).thenReturn(List.of(new CategoryFacetDTO(2L, "Eletrônicos", 4L)));
+
+        mockMvc.perform(get("/products/facets").param("name", " tv "))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].count").value(4));
+    }
+
     @Test
     void deveRetornar404_quandoBuscarProdutoInexistente() throws Exception {
         when(service.findById(99L)).thenThrow(new ResourceNotFoundException("Id não encontrado"));
@@ -165,6 +426,21 @@ class ProductControllerTest {
         verifyNoInteractions(service);
     }
 
+    @Test
+    void deveRetornar422ComOsIds_quandoCategoriasNaoExistem() throws Exception {
+        when(service.insert(any(ProductDTO.class)))
+                .thenThrow(new InvalidReferenceException("categories", List.of(7L, 9L)));
+
+        mockMvc.perform(post("/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(criarDtoValido())))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.error").value("Erro de validação"))
+                .andExpect(jsonPath("$.errors[0].fieldName").value("categories"))
+                .andExpect(jsonPath("$.errors[0].message").value("Id não encontrado: 7"))
+                .andExpect(jsonPath("$.errors[1].message").value("Id não encontrado: 9"));
+    }
+
     @Test
     void deveAtualizarProduto_quandoExistirEDtoForValido() throws Exception {
         ProductDTO retorno = criarDtoValido();
@@ -180,6 +456,33 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.name").value("Produto Teste"));
     }
 
+    @Test
+    void deveAtualizarParcialmente_quandoPatchValido() throws Exception {
+        ProductDTO retorno = criarDtoValido();
+        retorno.setId(1L);
+        retorno.setPrice(99.9);
+        when(service.patch(eq(1L), any(ProductPatchDTO.class))).thenReturn(retorno);
+
+        mockMvc.perform(patch("/products/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":99.9}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(99.9));
+
+        verify(service).patch(eq(1L), argThat(dto -> dto.getPrice() == 99.9 && dto.getName() == null));
+    }
+
+    @Test
+    void deveRetornar422_quandoPatchComNomeCurto() throws Exception {
+        mockMvc.perform(patch("/products/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"TV\"}"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.errors[0].fieldName").value("name"));
+
+        verify(service, never()).patch(anyLong(), any());
+    }
+
     @Test
     void deveRetornar404_quandoAtualizarProdutoInexistente_comDtoValido() throws Exception {
         when(service.update(eq(99L), any(ProductDTO.class)))
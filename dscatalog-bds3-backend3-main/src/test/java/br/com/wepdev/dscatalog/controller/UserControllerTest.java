@@ -1,5 +1,6 @@
 package br.com.wepdev.dscatalog.controller;
 
+import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -7,6 +8,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -28,14 +30,17 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import br.com.wepdev.dscatalog.components.PageEnvelope;
 import br.com.wepdev.dscatalog.controller.exceptions.ResourceExceptionHandler;
 import br.com.wepdev.dscatalog.dto.RoleDTO;
 import br.com.wepdev.dscatalog.dto.UserDTO;
 import br.com.wepdev.dscatalog.dto.UserInsertDTO;
 import br.com.wepdev.dscatalog.dto.UserUpdateDTO;
 import br.com.wepdev.dscatalog.repositories.UserRepository;
+import br.com.wepdev.dscatalog.services.FieldSet;
 import br.com.wepdev.dscatalog.services.UserService;
 import br.com.wepdev.dscatalog.services.exceptions.ResourceNotFoundException;
+import br.com.wepdev.dscatalog.services.exceptions.ServiceBusyException;
 
 @WebMvcTest(UserController.class)
 @AutoConfigureMockMvc(addFilters = false)
@@ -95,6 +100,34 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.content[0].id").value(1));
     }
 
+    @Test
+    void deveResponderListagemNoEnvelopeEnxuto() throws Exception {
+        when(service.findAllPaged(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(criarUserDTO())));
+
+        mockMvc.perform(get("/users").accept(PageEnvelope.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(PageEnvelope.MEDIA_TYPE))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.pageable").doesNotExist())
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void deveManterFormatoPadraoDoPageSemOEnvelope() throws Exception {
+        when(service.findAllPaged(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(criarUserDTO())));
+
+        mockMvc.perform(get("/users").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.totalPages").value(1))
+                .andExpect(jsonPath("$.number").value(0))
+                .andExpect(jsonPath("$.total").doesNotExist());
+    }
+
     @Test
     void deveBuscarUsuarioPorId() throws Exception {
         when(service.findById(1L)).thenReturn(criarUserDTO());
@@ -114,6 +147,26 @@ class UserControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void deveBuscarUsuarioSoComCamposPedidos() throws Exception {
+        when(service.findById(eq(1L), any(FieldSet.class))).thenReturn(criarUserDTO());
+
+        mockMvc.perform(get("/users/1").param("fields", "email"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.email").value("maria@email.com"))
+                .andExpect(jsonPath("$.firstName").doesNotExist())
+                .andExpect(jsonPath("$.roles").doesNotExist());
+    }
+
+    @Test
+    void deveRetornar400QuandoCampoDesconhecido() throws Exception {
+        mockMvc.perform(get("/users").param("fields", "password"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(service);
+    }
+
     @Test
     void deveInserirUsuario() throws Exception {
         when(service.insert(any(UserInsertDTO.class)))
@@ -127,6 +180,19 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.email").value("maria@email.com"));
     }
 
+    @Test
+    void deveRetornar503QuandoHashDeSenhaSaturado() throws Exception {
+        when(service.insert(any(UserInsertDTO.class)))
+                .thenThrow(new ServiceBusyException("Servidor ocupado, tente novamente em instantes"));
+
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(criarUserInsertDTO())))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", ServiceBusyException.RETRY_AFTER_SECONDS))
+                .andExpect(jsonPath("$.status").value(503));
+    }
+
     @Test
     void deveAtualizarUsuario() throws Exception {
         when(service.update(eq(1L), any(UserUpdateDTO.class)))
@@ -3,19 +3,29 @@ package br.com.wepdev.dscatalog.repositories;
 import br.com.wepdev.dscatalog.domain.Category;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@DataJpaTest
+@DataJpaTest(properties = {
+        // as verificações leem as estatísticas do Hibernate; o log por sessão fica desligado
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"})
 class CategoryRepositoryTest {
 
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private EntityManagerFactory emf;
+
     @Test
     void deveSalvarCategoria() {
         Category categoria = new Category();
@@ -75,4 +85,27 @@ class CategoryRepositoryTest {
 
         assertThat(resultado).isEmpty();
     }
+
+    @Test
+    void deveLerCategoriaDoCacheDeSegundoNivel() {
+        // cada leitura em uma sessão nova: no READ_WRITE o item só é visível para sessões abertas depois do put
+        CacheRegionStatistics stats = emf.unwrap(SessionFactory.class).getStatistics()
+                .getDomainDataRegionStatistics("category");
+        lerEmNovaSessao(emf, 1L);
+        long hits = stats.getHitCount();
+
+        Category resultado = lerEmNovaSessao(emf, 1L);
+
+        assertThat(resultado).isNotNull();
+        assertThat(stats.getHitCount()).isEqualTo(hits + 1);
+    }
+
+    private static Category lerEmNovaSessao(EntityManagerFactory emf, Long id) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.find(Category.class, id);
+        } finally {
+            em.close();
+        }
+    }
 }
@@ -1,29 +1,62 @@
 package br.com.wepdev.dscatalog.repositories;
 
 import br.com.wepdev.dscatalog.domain.Product;
+import br.com.wepdev.dscatalog.dto.CategoryFacetDTO;
+import br.com.wepdev.dscatalog.dto.PriceBucketDTO;
+import br.com.wepdev.dscatalog.dto.ProductCategoryDTO;
+import br.com.wepdev.dscatalog.dto.ProductDTO;
+import br.com.wepdev.dscatalog.dto.ProductExportRowDTO;
+import br.com.wepdev.dscatalog.dto.ProductSuggestionDTO;
+import br.com.wepdev.dscatalog.dto.ProductSummaryDTO;
+import br.com.wepdev.dscatalog.services.exceptions.InvalidParameterException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
-@DataJpaTest
+@DataJpaTest(properties = {
+        // as verificações leem as estatísticas do Hibernate; o log por sessão fica desligado
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"})
 class ProductRepositoryTest {
 
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private EntityManagerFactory emf;
+
     private final Pageable pageable = PageRequest.of(0, 20);
 
+    // as duas fases da busca de produtos, como o ProductService faz
+    private Page<Product> buscar(Long categoryId, String name) {
+        Page<Long> ids = productRepository.findIds(categoryId, "%" + name.toLowerCase() + "%", null, null, pageable);
+        return new PageImpl<>(productRepository.findWithCategoriesByIdIn(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
     @Test
     void deveBuscarTodosQuandoSemFiltro() {
         Long categoryId = null;
         String name = "";
 
-        Page<Product> result = productRepository.find(categoryId, name, pageable);
+        Page<Product> result = buscar(categoryId, name);
 
         assertThat(result).isNotNull();
         assertThat(result.getContent()).isNotEmpty();
@@ -34,7 +67,7 @@ class ProductRepositoryTest {
         Long categoryId = null;
         String name = "tv";
 
-        Page<Product> result = productRepository.find(categoryId, name, pageable);
+        Page<Product> result = buscar(categoryId, name);
 
         assertThat(result.getContent())
                 .allMatch(product ->
@@ -47,7 +80,7 @@ class ProductRepositoryTest {
         Long categoryId = 1L; // ajuste conforme seu import.sql
         String name = "";
 
-        Page<Product> result = productRepository.find(categoryId, name, pageable);
+        Page<Product> result = buscar(categoryId, name);
 
         assertThat(result).isNotNull();
         assertThat(result.getContent()).isNotEmpty();
@@ -65,7 +98,7 @@ class ProductRepositoryTest {
         Long categoryId = 1L;
         String name = "book";
 
-        Page<Product> result = productRepository.find(categoryId, name, pageable);
+        Page<Product> result = buscar(categoryId, name);
 
         assertThat(result.getContent())
                 .allMatch(product ->
@@ -80,8 +113,287 @@ class ProductRepositoryTest {
         Long categoryId = 999L;
         String name = "produto-inexistente";
 
-        Page<Product> result = productRepository.find(categoryId, name, pageable);
+        Page<Product> result = buscar(categoryId, name);
 
         assertThat(result.getContent()).isEmpty();
     }
+
+    @Test
+    void deveIgnorarProdutoSemCategoriaComoOJoinOriginal() {
+        Product semCategoria = new Product();
+        semCategoria.setName("Produto sem categoria");
+        semCategoria.setPrice(10.0);
+        productRepository.save(semCategoria);
+
+        assertThat(productRepository.findIds(null, "%sem categoria%", null, null, pageable).getContent()).isEmpty();
+        assertThat(productRepository.countByFilter(null, "%sem categoria%", null, null)).isZero();
+        assertThat(productRepository.findIds(null, "%%", null, null, pageable).getTotalElements()).isEqualTo(25L);
+    }
+
+    @Test
+    void deveBuscarIdsComPadraoEmMinusculas() {
+        Page<Long> ids = productRepository.findIds(null, "%gamer%", null, null, pageable);
+
+        assertThat(ids.getContent()).isNotEmpty();
+        assertThat(productRepository.findAllById(ids.getContent()))
+                .allMatch(product -> product.getName().toLowerCase().contains("gamer"));
+    }
+
+    @Test
+    void deveBuscarIdsFiltrandoCategoria() {
+        Page<Long> ids = productRepository.findIds(2L, "%%", null, null, pageable);
+
+        assertThat(ids.getContent()).containsExactlyInAnyOrder(1L, 5L);
+        assertThat(ids.getTotalElements()).isEqualTo(2L);
+    }
+
+    @Test
+    void deveBuscarIdsPaginadosSemDuplicarProdutos() {
+        Page<Long> ids = productRepository.findIds(null, "%%", null, null, PageRequest.of(0, 10, Sort.by("name")));
+
+        assertThat(ids.getTotalElements()).isEqualTo(25L);
+        assertThat(ids.getContent()).hasSize(10).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void deveOrdenarIdsPelosCamposDoSort() {
+        Page<Long> ids = productRepository.findIds(null, "%%", null, null, PageRequest.of(0, 30, Sort.by(Sort.Direction.DESC, "price")));
+
+        List<Double> prices = ids.getContent().stream()
+                .map(id -> productRepository.findById(id).orElseThrow().getPrice()).toList();
+
+        assertThat(prices).hasSize(25).isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
+    @Test
+    void deveRecusarCampoDeOrdenacaoDesconhecido() {
+        Pageable invalido = PageRequest.of(0, 10, Sort.by("description; DROP TABLE tb_product"));
+
+        assertThatThrownBy(() -> productRepository.findIds(null, "%%", null, null, invalido))
+                .isInstanceOf(InvalidParameterException.class);
+    }
+
+    @Test
+    void deveCarregarProdutosComCategoriasPelosIds() {
+        List<Product> result = productRepository.findWithCategoriesByIdIn(List.of(1L, 2L));
+
+        assertThat(result).hasSize(2);
+        assertThat(result).filteredOn(product -> product.getId().equals(2L))
+                .singleElement()
+                .satisfies(product -> assertThat(product.getCategories()).hasSize(2));
+    }
+
+    @Test
+    void deveContinuarDepoisDoCursorPorNome() {
+        Pageable limit = PageRequest.of(0, 5);
+
+        List<Product> first = productRepository.findNextByName(3L, "%pc gamer%", null, null, null, null, limit);
+        Product last = first.get(first.size() - 1);
+        List<Product> second = productRepository.findNextByName(3L, "%pc gamer%", null, null, last.getName(), last.getId(), limit);
+
+        assertThat(first).hasSize(5);
+        assertThat(second).isNotEmpty();
+        assertThat(second).allMatch(product -> product.getName().compareTo(last.getName()) > 0);
+        assertThat(second).doesNotContainAnyElementsOf(first);
+    }
+
+    @Test
+    void deveDesempatarCursorPorIdQuandoNomesSaoIguais() {
+        Product a = productRepository.save(new Product(null, "Repetido", "Descrição", 10.0, null, null));
+        Product b = productRepository.save(new Product(null, "Repetido", "Descrição", 10.0, null, null));
+        a.getCategories().add(productRepository.findById(1L).orElseThrow().getCategories().iterator().next());
+        b.getCategories().addAll(a.getCategories());
+        productRepository.flush();
+
+        List<Product> result = productRepository.findNextByName(null, "%repetido%", null, null, "Repetido", a.getId(),
+                PageRequest.of(0, 10));
+
+        assertThat(result).extracting(Product::getId).containsExactly(b.getId());
+    }
+
+    @Test
+    void deveContinuarDepoisDoCursorPorId() {
+        List<Product> result = productRepository.findNextById(null, "%%", null, null, 20L, PageRequest.of(0, 10));
+
+        assertThat(result).extracting(Product::getId).containsExactly(21L, 22L, 23L, 24L, 25L);
+    }
+
+    @Test
+    void deveBuscarSliceEContarComOMesmoFiltro() {
+        Slice<Long> slice = productRepository.findIdSlice(3L, "%gamer%", null, null, PageRequest.of(0, 5));
+        long total = productRepository.countByFilter(3L, "%gamer%", null, null);
+
+        assertThat(slice.getContent()).hasSize(5);
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(total).isEqualTo(buscar(3L, "gamer").getTotalElements());
+    }
+
+    @Test
+    void deveBuscarResumosPorProjecao() {
+        Page<ProductSummaryDTO> result = productRepository.findSummaries(3L, "%gamer%", PageRequest.of(0, 5, Sort.by("name")));
+
+        assertThat(result.getTotalElements()).isEqualTo(productRepository.countByFilter(3L, "%gamer%", null, null));
+        assertThat(result.getContent()).hasSize(5)
+                .allMatch(summary -> summary.getName().toLowerCase().contains("gamer"));
+    }
+
+    @Test
+    void deveBuscarCategoriasDosProdutosPorProjecao() {
+        List<ProductCategoryDTO> result = productRepository.findCategoriesByProductIdIn(List.of(1L, 2L));
+
+        assertThat(result).extracting(ProductCategoryDTO::getProductId).containsExactlyInAnyOrder(1L, 2L, 2L);
+        assertThat(result).filteredOn(cat -> cat.getProductId().equals(1L))
+                .extracting(ProductCategoryDTO::getName).containsExactly("Eletrônicos");
+    }
+
+    @Test
+    void deveExportarLinhasOrdenadasPorProduto() {
+        try (Stream<ProductExportRowDTO> rows = productRepository.streamForExport(null, "%%")) {
+            List<ProductExportRowDTO> list = rows.toList();
+
+            // o produto 2 tem duas categorias, então aparece em duas linhas seguidas
+            assertThat(list).hasSize(26);
+            assertThat(list).extracting(ProductExportRowDTO::getId).isSorted();
+            assertThat(list).filteredOn(row -> row.getId().equals(2L))
+                    .extracting(ProductExportRowDTO::getCategoryId).containsExactly(1L, 3L);
+        }
+    }
+
+    @Test
+    void deveExportarSomenteProdutosDaCategoria() {
+        try (Stream<ProductExportRowDTO> rows = productRepository.streamForExport(2L, "%%")) {
+            assertThat(rows.map(ProductExportRowDTO::getId)).containsExactly(1L, 5L);
+        }
+    }
+
+    @Test
+    void deveGerarIdsDaSequenciaAcimaDosExistentes() {
+        Product p1 = productRepository.save(new Product(null, "Produto A", "Descrição", 10.0, null, null));
+        Product p2 = productRepository.save(new Product(null, "Produto B", "Descrição", 10.0, null, null));
+        productRepository.flush();
+
+        assertThat(p1.getId()).isGreaterThan(25L);
+        assertThat(p2.getId()).isEqualTo(p1.getId() + 1);
+    }
+
+    @Test
+    void deveReajustarPrecosDaCategoriaEmUmUpdate() {
+        double antes = productRepository.findById(1L).orElseThrow().getPrice();
+
+        int updated = productRepository.adjustPrices(2L, "%%", 1.5, 0.0);
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(productRepository.findById(1L).orElseThrow().getPrice()).isEqualTo(Math.round(antes * 150) / 100.0);
+    }
+
+    @Test
+    void deveArredondarReajusteEmCentavos() {
+        Product produto = productRepository.findById(1L).orElseThrow();
+        produto.setPrice(100.0);
+        productRepository.saveAndFlush(produto);
+
+        productRepository.adjustPrices(2L, "%%", 1.1, 0.0);
+        productRepository.adjustPrices(2L, "%%", 1.0, 0.005);
+
+        // 100 * 1.1 em double é 110.00000000000001
+        assertThat(productRepository.findById(1L).orElseThrow().getPrice()).isEqualTo(110.01);
+    }
+
+    @Test
+    void naoDeveDeixarPrecoNegativoNoReajusteFixo() {
+        int updated = productRepository.adjustPrices(2L, "%%", 1.0, -1_000_000.0);
+
+        assertThat(updated).isZero();
+    }
+
+    @Test
+    void deveContarProdutosPorCategoria() {
+        List<CategoryFacetDTO> facets = productRepository.countByCategory("%%");
+
+        assertThat(facets).extracting(CategoryFacetDTO::getId).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(facets).filteredOn(facet -> facet.getId().equals(2L))
+                .singleElement()
+                .satisfies(facet -> assertThat(facet.getCount()).isEqualTo(2L));
+        assertThat(productRepository.countByCategory("%gamer%"))
+                .allMatch(facet -> facet.getCount() == productRepository.countByFilter(facet.getId(), "%gamer%", null, null));
+    }
+
+    @Test
+    void deveFiltrarIdsPorFaixaDePreco() {
+        Page<Long> ids = productRepository.findIds(null, "%%", 1000.0, 2000.0, PageRequest.of(0, 30, Sort.by("price")));
+
+        assertThat(ids.getContent()).isNotEmpty();
+        assertThat(ids.getTotalElements()).isEqualTo(productRepository.countByFilter(null, "%%", 1000.0, 2000.0));
+        assertThat(productRepository.findAllById(ids.getContent()))
+                .allMatch(product -> product.getPrice() >= 1000.0 && product.getPrice() <= 2000.0);
+    }
+
+    @Test
+    void deveMontarHistogramaDePrecosCobrindoTodosOsProdutos() {
+        List<PriceBucketDTO> histogram = productRepository.priceHistogram(null, "%%", null, null, 5);
+
+        assertThat(histogram).hasSize(5);
+        assertThat(histogram.stream().mapToLong(PriceBucketDTO::getCount).sum()).isEqualTo(25L);
+        assertThat(histogram.get(0).getFrom()).isLessThan(histogram.get(4).getTo());
+    }
+
+    @Test
+    void deveMontarHistogramaRespeitandoFiltros() {
+        List<PriceBucketDTO> histogram = productRepository.priceHistogram(3L, "%gamer%", 1000.0, 3000.0, 4);
+
+        assertThat(histogram).hasSize(4);
+        assertThat(histogram.get(0).getFrom()).isEqualTo(1000.0);
+        assertThat(histogram.get(3).getTo()).isEqualTo(3000.0);
+        assertThat(histogram.stream().mapToLong(PriceBucketDTO::getCount).sum())
+                .isEqualTo(productRepository.countByFilter(3L, "%gamer%", 1000.0, 3000.0));
+    }
+
+    @Test
+    void deveRetornarHistogramaVazioSemProdutos() {
+        assertThat(productRepository.priceHistogram(null, "%inexistente%", null, null, 5)).isEmpty();
+    }
+
+    @Test
+    void deveCarregarNomesDeTodosOsProdutos() {
+        List<ProductSuggestionDTO> names = productRepository.findAllNames();
+
+        assertThat(names).hasSize(25);
+        assertThat(names).extracting(ProductSuggestionDTO::getName).contains("Smart TV");
+    }
+
+    @Test
+    void deveBuscarSoAsColunasPedidas() {
+        List<ProductDTO> result = productRepository.findFieldsByIdIn(List.of(1L, 2L), Set.of("id", "name", "price"));
+
+        assertThat(result).hasSize(2);
+        assertThat(result).allSatisfy(dto -> {
+            assertThat(dto.getName()).isNotNull();
+            assertThat(dto.getPrice()).isNotNull();
+            assertThat(dto.getDescription()).isNull();
+            assertThat(dto.getDate()).isNull();
+            assertThat(dto.getCategories()).isEmpty();
+        });
+    }
+
+    @Test
+    void deveLerCategoriasDoProdutoDoCacheDeSegundoNivel() {
+        CacheRegionStatistics stats = emf.unwrap(SessionFactory.class).getStatistics()
+                .getDomainDataRegionStatistics("product.categories");
+        contarCategoriasEmNovaSessao(emf, 1L);
+        long hits = stats.getHitCount();
+
+        int categorias = contarCategoriasEmNovaSessao(emf, 1L);
+
+        assertThat(categorias).isPositive();
+        assertThat(stats.getHitCount()).isEqualTo(hits + 1);
+    }
+
+    private static int contarCategoriasEmNovaSessao(EntityManagerFactory emf, Long productId) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.find(Product.class, productId).getCategories().size();
+        } finally {
+            em.close();
+        }
+    }
 }
@@ -1,9 +1,13 @@
 package br.com.wepdev.dscatalog.repositories;
 
+import br.com.wepdev.dscatalog.domain.Role;
 import br.com.wepdev.dscatalog.domain.User;
+import br.com.wepdev.dscatalog.dto.UserDTO;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.Optional;
@@ -17,6 +21,9 @@ class UserRepositoryTest {
     @Autowired
     private UserRepository repository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private User criarUsuario() {
         User user = new User();
         user.setFirstName("Maria");
@@ -94,4 +101,29 @@ class UserRepositoryTest {
 
         assertThat(result).isNull();
     }
+
+    @Test
+    void deveBuscarProjecaoSemPerfis() {
+        User user = repository.save(criarUsuario());
+
+        Optional<UserDTO> result = repository.findSummaryById(user.getId());
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getEmail()).isEqualTo("maria@email.com");
+        assertThat(result.get().getRoles()).isEmpty();
+        assertThat(repository.findSummaries(PageRequest.of(0, 5)).getTotalElements()).isEqualTo(repository.count());
+    }
+
+    @Test
+    void deveGravarPerfilDesanexadoComoNoRoleRegistry() {
+        User user = criarUsuario();
+        // instância fora da sessão, como as do RoleRegistry: só o id vai para tb_user_role
+        user.getRoles().add(new Role(2L, "ROLE_ADMIN"));
+        Long id = repository.saveAndFlush(user).getId();
+        entityManager.clear();
+
+        User result = repository.findById(id).get();
+
+        assertThat(result.getRoles()).extracting(Role::getAuthority).containsExactly("ROLE_ADMIN");
+    }
 }
@@ -0,0 +1,64 @@
+package br.com.wepdev.dscatalog.services;
+
+import br.com.wepdev.dscatalog.domain.Category;
+import br.com.wepdev.dscatalog.repositories.CategoryRepository;
+import br.com.wepdev.dscatalog.services.exceptions.InvalidReferenceException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryResolverTest {
+
+    @InjectMocks
+    private CategoryResolver resolver;
+
+    @Mock
+    private CategoryRepository repository;
+
+    @Test
+    void deveResolverTodasAsCategoriasEmUmaConsulta() {
+        when(repository.findAllById(List.of(2L, 1L))).thenReturn(List.of(new Category(1L, "Livros"), new Category(2L, "Eletrônicos")));
+
+        Map<Long, Category> result = resolver.resolve(List.of(2L, 1L, 2L));
+
+        assertThat(result.keySet()).containsExactly(2L, 1L);
+        verify(repository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void deveListarTodosOsIdsInexistentes() {
+        when(repository.findAllById(List.of(1L, 7L, 9L))).thenReturn(List.of(new Category(1L, "Livros")));
+
+        assertThatThrownBy(() -> resolver.resolve(List.of(1L, 7L, 9L)))
+                .isInstanceOfSatisfying(InvalidReferenceException.class, e -> {
+                    assertThat(e.getField()).isEqualTo("categories");
+                    assertThat(e.getIds()).containsExactly(7L, 9L);
+                });
+    }
+
+    @Test
+    void deveTratarIdNuloComoInexistente() {
+        when(repository.findAllById(List.of(1L))).thenReturn(List.of(new Category(1L, "Livros")));
+
+        assertThatThrownBy(() -> resolver.resolve(Arrays.asList(1L, null)))
+                .isInstanceOfSatisfying(InvalidReferenceException.class,
+                        e -> assertThat(e.getIds()).containsExactly((Long) null));
+    }
+
+    @Test
+    void naoDeveConsultarQuandoNaoHaCategorias() {
+        assertThat(resolver.resolve(List.of())).isEmpty();
+
+        verifyNoInteractions(repository);
+    }
+}
@@ -1,5 +1,8 @@
 package br.com.wepdev.dscatalog.services;
 
+import br.com.wepdev.dscatalog.components.CatalogGeneration;
+import br.com.wepdev.dscatalog.components.CountCache;
+import br.com.wepdev.dscatalog.config.PrimaryReads;
 import br.com.wepdev.dscatalog.domain.Category;
 import br.com.wepdev.dscatalog.dto.CategoryDTO;
 import br.com.wepdev.dscatalog.repositories.CategoryRepository;
@@ -9,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
 
@@ -27,6 +31,16 @@ class CategoryServiceTest {
     @Mock
     private CategoryRepository repository;
 
+    @Mock
+    private CountCache countCache;
+
+    @Mock
+    private CatalogGeneration catalogGeneration;
+
+    // sem réplica: a carga é chamada direto
+    @Spy
+    private PrimaryReads primaryReads = new PrimaryReads(null, null);
+
     private Category category;
 
     @BeforeEach
@@ -36,8 +50,7 @@ class CategoryServiceTest {
 
     @Test
     void deveBuscarTodasCategoriasPaginadas() {
-        Page<Category> page = new PageImpl<>(List.of(category));
-        when(repository.findAll(any(Pageable.class))).thenReturn(page);
+        when(repository.findAll()).thenReturn(List.of(category));
 
         Page<CategoryDTO> result = service.findAllPaged(PageRequest.of(0, 10));
 
@@ -45,6 +58,61 @@ class CategoryServiceTest {
         assertThat(result.getContent().get(0).getName()).isEqualTo("Livros");
     }
 
+    @Test
+    void deveServirPaginasDaCopiaEmMemoria() {
+        when(repository.findAll()).thenReturn(List.of(category, new Category(2L, "Eletrônicos"), new Category(3L, "Computadores")));
+
+        Page<CategoryDTO> primeira = service.findAllPaged(PageRequest.of(0, 2, Sort.by("name")));
+        Slice<CategoryDTO> segunda = service.findAllSliced(PageRequest.of(1, 2, Sort.by("name")), false);
+
+        assertThat(primeira.getTotalElements()).isEqualTo(3L);
+        assertThat(primeira.getContent()).extracting(CategoryDTO::getName).containsExactly("Computadores", "Eletrônicos");
+        assertThat(segunda.getContent()).extracting(CategoryDTO::getName).containsExactly("Livros");
+        assertThat(segunda.hasNext()).isFalse();
+        verify(repository, times(1)).findAll();
+        verify(repository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void deveOrdenarNomesAcentuadosEMinusculosEmOrdemAlfabetica() {
+        when(repository.findAll()).thenReturn(List.of(category, new Category(2L, "Áudio"),
+                new Category(3L, "eletrodomésticos"), new Category(4L, "Eletrônicos")));
+
+        Page<CategoryDTO> asc = service.findAllPaged(PageRequest.of(0, 10, Sort.by("name")));
+        Page<CategoryDTO> desc = service.findAllPaged(PageRequest.of(0, 10, Sort.by(Sort.Order.desc("name").ignoreCase())));
+
+        assertThat(asc.getContent()).extracting(CategoryDTO::getName)
+                .containsExactly("Áudio", "eletrodomésticos", "Eletrônicos", "Livros");
+        assertThat(desc.getContent()).extracting(CategoryDTO::getName)
+                .containsExactly("Livros", "Eletrônicos", "eletrodomésticos", "Áudio");
+    }
+
+    @Test
+    void deveAtualizarCopiaEmMemoriaSemRecarregar() {
+        when(repository.findAll()).thenReturn(List.of(category));
+        when(repository.save(any())).thenReturn(new Category(2L, "Eletrônicos"));
+        service.findAllSnapshot();
+
+        service.insert(new CategoryDTO(null, "Eletrônicos"));
+        service.delete(1L);
+
+        assertThat(service.findAllSnapshot().getCategories()).extracting(CategoryDTO::getName).containsExactly("Eletrônicos");
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void deveBuscarNoBancoQuandoOrdenacaoNaoEstaNaCopia() {
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("createdAt"));
+        when(repository.findAllBy(pageable)).thenReturn(new SliceImpl<>(List.of(category), pageable, false));
+        when(countCache.get(eq("category"), any())).thenReturn(1L);
+
+        Slice<CategoryDTO> result = service.findAllSliced(pageable, true);
+
+        assertThat(result).isInstanceOf(Page.class);
+        assertThat(((Page<CategoryDTO>) result).getTotalElements()).isEqualTo(1L);
+        verify(repository, never()).findAll(any(Pageable.class));
+    }
+
     @Test
     void deveBuscarCategoriaPorIdQuandoIdExiste() {
         when(repository.findById(1L)).thenReturn(Optional.of(category));
@@ -79,6 +147,7 @@ class CategoryServiceTest {
         service.delete(1L);
 
         verify(repository).deleteById(1L);
+        verify(catalogGeneration).bump();
     }
 
     @Test
@@ -0,0 +1,97 @@
+package br.com.wepdev.dscatalog.services;
+
+import br.com.wepdev.dscatalog.dto.ProductExportRowDTO;
+import br.com.wepdev.dscatalog.repositories.ProductRepository;
+import br.com.wepdev.dscatalog.services.exceptions.ServiceBusyException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductExportServiceTest {
+
+    @Mock
+    private ProductRepository repository;
+
+    private ProductExportService service;
+
+    private final Instant date = Instant.parse("2020-07-13T20:50:07.123450Z");
+
+    @BeforeEach
+    void setup() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        service = new ProductExportService(repository, objectMapper, 1);
+
+        lenient().when(repository.streamForExport(isNull(), eq("%%"))).thenReturn(Stream.of(
+                new ProductExportRowDTO(1L, "Livro Java", "Descrição", 100.0, "img.png", date, 1L, "Livros"),
+                new ProductExportRowDTO(2L, "Smart TV", "Tela \"grande\", 4K", 2190.0, "tv.png", date, 2L, "Eletrônicos"),
+                new ProductExportRowDTO(2L, "Smart TV", "Tela \"grande\", 4K", 2190.0, "tv.png", date, 3L, "Computadores"),
+                new ProductExportRowDTO(3L, "Sem categoria", "Descrição", 10.0, null, date, null, null)));
+    }
+
+    @Test
+    void deveExportarUmProdutoPorLinhaEmNdjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long total = service.export(0L, "", ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(total).isEqualTo(3L);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[1]).contains("\"id\":2").contains("Eletrônicos").contains("Computadores");
+        assertThat(lines[2]).contains("\"categories\":[]");
+    }
+
+    @Test
+    void deveExportarCsvComCamposEscapados() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(0L, "", ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines[0]).isEqualTo("id,name,description,price,imgUrl,date,categories");
+        assertThat(lines[2]).isEqualTo("2,Smart TV,\"Tela \"\"grande\"\", 4K\",2190.0,tv.png,2020-07-13T20:50:07.123450Z,Eletrônicos|Computadores");
+        assertThat(lines).hasSize(4);
+    }
+
+    @Test
+    void deveDeixarPrecoNuloVazioNoCsv() throws Exception {
+        when(repository.streamForExport(eq(1L), eq("%%"))).thenReturn(Stream.of(
+                new ProductExportRowDTO(4L, "Sem preço", null, null, null, null, 1L, "Livros")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(1L, "", ExportFormat.CSV, out);
+
+        // a importação lê o campo vazio como preço ausente, não "null"
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n")[1]).isEqualTo("4,Sem preço,,,,,Livros");
+    }
+
+    @Test
+    void deveRecusarExportacaoAcimaDoLimiteAteAVagaSerDevolvida() {
+        service.acquire();
+
+        assertThatThrownBy(() -> service.acquire()).isInstanceOf(ServiceBusyException.class);
+
+        service.release();
+        service.acquire();
+    }
+}
@@ -0,0 +1,168 @@
+package br.com.wepdev.dscatalog.services;
+
+import br.com.wepdev.dscatalog.components.CatalogGeneration;
+import br.com.wepdev.dscatalog.components.ProductNameIndex;
+import br.com.wepdev.dscatalog.components.CountCache;
+import br.com.wepdev.dscatalog.domain.Category;
+import br.com.wepdev.dscatalog.domain.Product;
+import br.com.wepdev.dscatalog.dto.CategoryDTO;
+import br.com.wepdev.dscatalog.dto.ImportErrorDTO;
+import br.com.wepdev.dscatalog.dto.ImportReportDTO;
+import br.com.wepdev.dscatalog.repositories.CategoryRepository;
+import br.com.wepdev.dscatalog.repositories.ProductRepository;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImportServiceTest {
+
+    @Mock
+    private ProductRepository repository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private CategoryService categoryService;
+
+    @Mock
+    private CountCache countCache;
+
+    @Mock
+    private CatalogGeneration catalogGeneration;
+
+    @Mock
+    private ProductNameIndex nameIndex;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductImportService service;
+
+    @BeforeEach
+    void setup() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        service = new ProductImportService(repository, new CategoryResolver(categoryRepository), categoryService, countCache,
+                catalogGeneration, nameIndex, objectMapper, Validation.buildDefaultValidatorFactory().getValidator(),
+                transactionManager, 2, 10);
+
+        when(categoryService.findAllSnapshot()).thenReturn(CategorySnapshot.of(List.of(
+                new CategoryDTO(1L, "Livros"), new CategoryDTO(2L, "Eletrônicos"))));
+        lenient().when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        lenient().when(categoryRepository.findAllById(any())).thenAnswer(inv -> {
+            List<Category> found = new ArrayList<>();
+            for (Long id : inv.<Iterable<Long>>getArgument(0)) {
+                if (id <= 2L) {
+                    found.add(new Category(id, null));
+                }
+            }
+            return found;
+        });
+    }
+
+    private ByteArrayInputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String produto(String name, String price, String categories) {
+        return "{\"name\":\"" + name + "\",\"description\":\"Descrição\",\"price\":" + price
+                + ",\"date\":\"2020-07-13T20:50:07Z\",\"categories\":[" + categories + "]}";
+    }
+
+    @Test
+    void deveImportarArrayJsonEmLotesERelatarLinhasInvalidas() throws Exception {
+        String json = "[" + String.join(",",
+                produto("Livro Java", "100.0", "{\"id\":1}"),
+                produto("Livro Kotlin", "\"abc\"", "{\"id\":1}"),
+                produto("Smart TV", "2190.0", "{\"id\":2}"),
+                produto("Sem categoria", "10.0", ""),
+                produto("Notebook", "1200.0", "{\"id\":2}")) + "]";
+
+        ImportReportDTO report = service.importProducts(body(json), ExportFormat.NDJSON);
+
+        assertThat(report.getTotal()).isEqualTo(5L);
+        assertThat(report.getImported()).isEqualTo(3L);
+        assertThat(report.getFailed()).isEqualTo(2L);
+        assertThat(report.getErrors()).extracting(ImportErrorDTO::getRow).containsExactly(2L, 4L);
+        assertThat(report.getErrors()).extracting(ImportErrorDTO::getField).containsExactly("price", "categories");
+        // lote de 2 + o resto no final
+        verify(repository, times(2)).flush();
+        verify(repository, times(3)).save(any());
+        // uma consulta de categorias por lote
+        verify(categoryRepository, times(2)).findAllById(any());
+        verify(nameIndex, times(3)).put(any(), any());
+        verify(catalogGeneration).bump();
+        verify(countCache).invalidate("product:");
+    }
+
+    @Test
+    void deveImportarCsvResolvendoCategoriasPorNome() throws Exception {
+        String csv = """
+                id,name,description,price,imgUrl,date,categories
+                ,Livro Java,"Descrição, com vírgula",100.0,img.png,2020-07-13T20:50:07Z,Livros|2
+                ,Livro Kotlin,Descrição,80.0,,2020-07-13T20:50:07Z,Inexistente
+                """;
+
+        ImportReportDTO report = service.importProducts(body(csv), ExportFormat.CSV);
+
+        ArgumentCaptor<Product> saved = ArgumentCaptor.forClass(Product.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue().getDescription()).isEqualTo("Descrição, com vírgula");
+        assertThat(saved.getValue().getCategories()).hasSize(2);
+        assertThat(report.getErrors()).singleElement()
+                .satisfies(error -> assertThat(error.getMessage()).contains("Inexistente"));
+    }
+
+    @Test
+    void deveRepetirLinhaALinhaQuandoOLoteFalha() throws Exception {
+        String json = produto("Livro Java", "100.0", "{\"id\":1}") + "\n" + produto("Livro Kotlin", "80.0", "{\"id\":1}");
+        doThrow(new DataIntegrityViolationException("duplicado"))
+                .doNothing()
+                .doThrow(new DataIntegrityViolationException("duplicado"))
+                .when(repository).flush();
+
+        ImportReportDTO report = service.importProducts(body(json), ExportFormat.NDJSON);
+
+        assertThat(report.getImported()).isEqualTo(1L);
+        assertThat(report.getFailed()).isEqualTo(1L);
+        assertThat(report.getErrors()).singleElement()
+                .satisfies(error -> assertThat(error.getRow()).isEqualTo(2L));
+    }
+
+    @Test
+    void deveRejeitarSoALinhaComCategoriaExcluidaDepoisDaValidacao() throws Exception {
+        when(categoryService.findAllSnapshot()).thenReturn(CategorySnapshot.of(List.of(
+                new CategoryDTO(1L, "Livros"), new CategoryDTO(3L, "Excluída"))));
+        String json = produto("Livro Java", "100.0", "{\"id\":1}") + "\n" + produto("Livro Kotlin", "80.0", "{\"id\":3}");
+
+        ImportReportDTO report = service.importProducts(body(json), ExportFormat.NDJSON);
+
+        assertThat(report.getImported()).isEqualTo(1L);
+        assertThat(report.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getRow()).isEqualTo(2L);
+            assertThat(error.getField()).isEqualTo("categories");
+            assertThat(error.getMessage()).contains("3");
+        });
+    }
+}
@@ -0,0 +1,165 @@
+package br.com.wepdev.dscatalog.services;
+
+import br.com.wepdev.dscatalog.components.CatalogGeneration;
+import br.com.wepdev.dscatalog.components.CountCache;
+import br.com.wepdev.dscatalog.components.ProductNameIndex;
+import br.com.wepdev.dscatalog.config.CacheConfig;
+import br.com.wepdev.dscatalog.config.PrimaryReads;
+import br.com.wepdev.dscatalog.domain.Category;
+import br.com.wepdev.dscatalog.domain.Product;
+import br.com.wepdev.dscatalog.dto.CategoryDTO;
+import br.com.wepdev.dscatalog.dto.CategoryFacetDTO;
+import br.com.wepdev.dscatalog.dto.ProductDTO;
+import br.com.wepdev.dscatalog.repositories.CategoryRepository;
+import br.com.wepdev.dscatalog.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+@Import({CacheConfig.class, PrimaryReads.class, ProductService.class, CategoryService.class, CategoryResolver.class})
+class ProductServiceCacheTest {
+
+    @TestConfiguration
+    static class Config {
+
+        // a chave da busca referencia o bean pelo nome que o component scan dá a ele
+        @Bean
+        CatalogGeneration catalogGeneration() {
+            return new CatalogGeneration();
+        }
+    }
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private ProductRepository repository;
+
+    @MockBean
+    private CategoryRepository categoryRepository;
+
+    @MockBean
+    private CountCache countCache;
+
+    @MockBean
+    private ProductNameIndex nameIndex;
+
+    private Product product;
+    private Category category;
+
+    @BeforeEach
+    void setup() {
+        category = new Category(1L, "Livros");
+        product = new Product(1L, "Livro Java", "Descrição", 100.0, "img.png", Instant.now());
+        product.getCategories().add(category);
+        when(repository.findById(1L)).thenReturn(Optional.of(product));
+        cacheManager.getCache(CacheConfig.PRODUCTS).clear();
+        cacheManager.getCache(CacheConfig.PRODUCT_SEARCH).clear();
+        cacheManager.getCache(CacheConfig.PRODUCT_FACETS).clear();
+        when(repository.findIds(isNull(), eq("%livro%"), isNull(), isNull(), any())).thenReturn(new PageImpl<>(List.of(1L)));
+        when(repository.findWithCategoriesByIdIn(List.of(1L))).thenReturn(List.of(product));
+    }
+
+    @Test
+    void deveServirProdutoDoCacheNaSegundaLeitura() {
+        ProductDTO first = service.findById(1L);
+        ProductDTO second = service.findById(1L);
+
+        assertThat(second).isSameAs(first);
+        verify(repository, times(1)).findById(1L);
+    }
+
+    @Test
+    void deveInvalidarProdutoAoAtualizar() {
+        when(repository.getReferenceById(1L)).thenReturn(product);
+        when(repository.save(product)).thenReturn(product);
+        when(categoryRepository.findAllById(List.of(1L))).thenReturn(List.of(category));
+
+        service.findById(1L);
+        service.update(1L, new ProductDTO(product, product.getCategories()));
+        service.findById(1L);
+
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    void deveInvalidarProdutoAoExcluir() {
+        service.findById(1L);
+        service.delete(1L);
+        service.findById(1L);
+
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    void deveInvalidarProdutosAoRenomearCategoria() {
+        when(categoryRepository.getReferenceById(1L)).thenReturn(category);
+        when(categoryRepository.save(category)).thenReturn(category);
+
+        service.findById(1L);
+        categoryService.update(1L, new CategoryDTO(1L, "Livros técnicos"));
+        service.findById(1L);
+
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    void deveServirBuscaRepetidaDoCache() {
+        Page<ProductDTO> first = service.findAllPaged(0L, "livro", null, null, PageRequest.of(0, 10));
+        Page<ProductDTO> second = service.findAllPaged(0L, "livro", null, null, PageRequest.of(0, 10));
+        service.findAllPaged(0L, "livro", null, null, PageRequest.of(1, 10));
+
+        assertThat(second).isSameAs(first);
+        verify(repository, times(2)).findIds(isNull(), eq("%livro%"), isNull(), isNull(), any());
+    }
+
+    @Test
+    void deveInvalidarBuscasQuandoCatalogoMuda() {
+        when(categoryRepository.getReferenceById(1L)).thenReturn(category);
+        when(categoryRepository.save(category)).thenReturn(category);
+
+        service.findAllPaged(0L, "livro", null, null, PageRequest.of(0, 10));
+        categoryService.update(1L, new CategoryDTO(1L, "Livros técnicos"));
+        service.findAllPaged(0L, "livro", null, null, PageRequest.of(0, 10));
+        service.delete(1L);
+        service.findAllPaged(0L, "livro", null, null, PageRequest.of(0, 10));
+
+        verify(repository, times(3)).findIds(isNull(), eq("%livro%"), isNull(), isNull(), any());
+    }
+
+    @Test
+    void deveCachearFacetasSomenteDaBuscaSemNome() {
+        when(repository.countByCategory(anyString())).thenReturn(List.of(new CategoryFacetDTO(1L, "Livros", 1L)));
+
+        service.findCategoryFacets("");
+        service.findCategoryFacets("");
+        service.findCategoryFacets("livro");
+        service.findCategoryFacets("livro");
+
+        verify(repository, times(1)).countByCategory("%%");
+        verify(repository, times(2)).countByCategory("%livro%");
+    }
+}
@@ -0,0 +1,112 @@
+package br.com.wepdev.dscatalog.services;
+
+import br.com.wepdev.dscatalog.components.CatalogGeneration;
+import br.com.wepdev.dscatalog.components.CountCache;
+import br.com.wepdev.dscatalog.components.ProductNameIndex;
+import br.com.wepdev.dscatalog.domain.Product;
+import br.com.wepdev.dscatalog.dto.CategoryDTO;
+import br.com.wepdev.dscatalog.dto.ProductDTO;
+import br.com.wepdev.dscatalog.dto.ProductPatchDTO;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Confere, contra o banco, quantos comandos a atualização de produto manda para a tabela de
+ * ligação tb_product_category. O produto 2 da carga inicial tem as categorias 1 e 3.
+ */
+@DataJpaTest(properties = {
+        // as verificações leem as estatísticas do Hibernate; o log por sessão fica desligado
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"})
+@Import({ProductService.class, CategoryResolver.class})
+class ProductServiceLinkTest {
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @MockBean
+    private CountCache countCache;
+
+    @MockBean
+    private CatalogGeneration catalogGeneration;
+
+    @MockBean
+    private ProductNameIndex nameIndex;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void setup() {
+        stats = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private ProductDTO dtoDoProduto2(Long... categoryIds) {
+        Product product = entityManager.find(Product.class, 2L);
+        ProductDTO dto = new ProductDTO(product);
+        for (Long id : categoryIds) {
+            dto.getCategories().add(new CategoryDTO(id, null));
+        }
+        return dto;
+    }
+
+    // comandos executados no flush da atualização
+    private long comandosNoFlush(Runnable update) {
+        update.run();
+        long before = stats.getPrepareStatementCount();
+        entityManager.flush();
+        return stats.getPrepareStatementCount() - before;
+    }
+
+    private List<Long> categoriasNoBanco() {
+        return jdbc.queryForList("SELECT category_id FROM tb_product_category WHERE product_id = 2 ORDER BY category_id", Long.class);
+    }
+
+    @Test
+    void naoDeveTocarNaTabelaDeLigacaoQuandoCategoriasNaoMudam() {
+        ProductDTO dto = dtoDoProduto2(3L, 1L);
+        long updates = stats.getCollectionUpdateCount();
+
+        assertThat(comandosNoFlush(() -> service.update(2L, dto))).isZero();
+        // coleção não fica suja: nada de CollectionUpdateAction nem despejo da região product.categories
+        assertThat(stats.getCollectionUpdateCount()).isEqualTo(updates);
+        assertThat(categoriasNoBanco()).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void deveApagarEInserirSoAsLigacoesQueMudaram() {
+        ProductDTO dto = dtoDoProduto2(1L, 2L);
+
+        // um DELETE da categoria 3 e um INSERT da 2; a ligação com a 1 fica
+        assertThat(comandosNoFlush(() -> service.update(2L, dto))).isEqualTo(2);
+        assertThat(categoriasNoBanco()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void deveAtualizarSoCamposSimplesNoPatch() {
+        ProductPatchDTO dto = new ProductPatchDTO();
+        dto.setPrice(99.9);
+
+        // só o UPDATE do tb_product
+        assertThat(comandosNoFlush(() -> service.patch(2L, dto))).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT price FROM tb_product WHERE id = 2", Double.class)).isEqualTo(99.9);
+        assertThat(categoriasNoBanco()).containsExactly(1L, 3L);
+    }
+}
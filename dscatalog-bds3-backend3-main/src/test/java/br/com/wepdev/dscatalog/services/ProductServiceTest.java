@@ -1,10 +1,22 @@
 package br.com.wepdev.dscatalog.services;
 
+import br.com.wepdev.dscatalog.components.CatalogGeneration;
+import br.com.wepdev.dscatalog.components.ProductNameIndex;
+import br.com.wepdev.dscatalog.components.CountCache;
 import br.com.wepdev.dscatalog.domain.Category;
 import br.com.wepdev.dscatalog.domain.Product;
+import br.com.wepdev.dscatalog.dto.CategoryDTO;
+import br.com.wepdev.dscatalog.dto.CursorPageDTO;
+import br.com.wepdev.dscatalog.dto.PriceAdjustmentDTO;
+import br.com.wepdev.dscatalog.dto.PriceAdjustmentResultDTO;
+import br.com.wepdev.dscatalog.dto.ProductCategoryDTO;
+import br.com.wepdev.dscatalog.dto.PriceBucketDTO;
+import br.com.wepdev.dscatalog.dto.ProductBatchDTO;
 import br.com.wepdev.dscatalog.dto.ProductDTO;
-import br.com.wepdev.dscatalog.repositories.CategoryRepository;
+import br.com.wepdev.dscatalog.dto.ProductPatchDTO;
+import br.com.wepdev.dscatalog.dto.ProductSummaryDTO;
 import br.com.wepdev.dscatalog.repositories.ProductRepository;
+import br.com.wepdev.dscatalog.services.exceptions.InvalidParameterException;
 import br.com.wepdev.dscatalog.services.exceptions.ResourceNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,9 +27,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
 
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -32,7 +47,16 @@ class ProductServiceTest {
     private ProductRepository repository;
 
     @Mock
-    private CategoryRepository categoryRepository;
+    private CategoryResolver categoryResolver;
+
+    @Mock
+    private CountCache countCache;
+
+    @Mock
+    private CatalogGeneration catalogGeneration;
+
+    @Mock
+    private ProductNameIndex nameIndex;
 
     private Product product;
     private Category category;
@@ -54,14 +78,204 @@ class ProductServiceTest {
 
     @Test
     void deveBuscarProdutosPaginados() {
-        Page<Product> page = new PageImpl<>(List.of(product));
-        when(repository.find(any(), anyString(), any())).thenReturn(page);
-        when(repository.findProductsWithCategories(any())).thenReturn(List.of(product));
+        Page<Long> ids = new PageImpl<>(List.of(1L));
+        when(repository.findIds(isNull(), eq("%%"), isNull(), isNull(), any())).thenReturn(ids);
+        when(repository.findWithCategoriesByIdIn(List.of(1L))).thenReturn(List.of(product));
 
-        Page<ProductDTO> result = service.findAllPaged(0L, "", PageRequest.of(0, 10));
+        Page<ProductDTO> result = service.findAllPaged(0L, "", null, null, PageRequest.of(0, 10));
 
         assertThat(result.getContent()).isNotEmpty();
         assertThat(result.getContent().get(0).getName()).isEqualTo("Livro Java");
+        assertThat(result.getContent().get(0).getCategories()).hasSize(1);
+    }
+
+    @Test
+    void deveManterOrdemDosIdsNaSegundaFase() {
+        Product outro = new Product(2L, "Livro Kotlin", "Descrição", 80.0, "img.png", Instant.now());
+        when(repository.findIds(isNull(), eq("%%"), isNull(), isNull(), any())).thenReturn(new PageImpl<>(List.of(2L, 1L)));
+        when(repository.findWithCategoriesByIdIn(List.of(2L, 1L))).thenReturn(List.of(product, outro));
+
+        Page<ProductDTO> result = service.findAllPaged(0L, "", null, null, PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).extracting(ProductDTO::getId).containsExactly(2L, 1L);
+        verify(repository, never()).findProductsWithCategories(any());
+    }
+
+    @Test
+    void deveBuscarResumosComCategoriasSemCarregarEntidades() {
+        ProductSummaryDTO summary = new ProductSummaryDTO(1L, "Livro Java", 100.0, "img.png", Instant.now());
+        when(repository.findSummaries(isNull(), eq("%%"), any())).thenReturn(new PageImpl<>(List.of(summary)));
+        when(repository.findCategoriesByProductIdIn(Set.of(1L)))
+                .thenReturn(List.of(new ProductCategoryDTO(1L, 1L, "Livros")));
+
+        Page<ProductSummaryDTO> result = service.findAllSummaries(0L, "", PageRequest.of(0, 10));
+
+        assertThat(result.getContent().get(0).getCategories())
+                .extracting(CategoryDTO::getName).containsExactly("Livros");
+        verify(repository, never()).findWithCategoriesByIdIn(any());
+    }
+
+    @Test
+    void deveBuscarSliceSemContagem() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(repository.findIdSlice(isNull(), eq("%livro%"), isNull(), isNull(), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of(1L), pageable, true));
+        when(repository.findWithCategoriesByIdIn(List.of(1L))).thenReturn(List.of(product));
+
+        Slice<ProductDTO> result = service.findAllSliced(0L, "Livro", null, null, pageable, false);
+
+        assertThat(result).isNotInstanceOf(Page.class);
+        assertThat(result.hasNext()).isTrue();
+        verify(repository, never()).countByFilter(any(), any(), any(), any());
+        verifyNoInteractions(countCache);
+    }
+
+    @Test
+    void deveUsarTotalEstimadoDoCache() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(repository.findIdSlice(isNull(), eq("%%"), isNull(), isNull(), eq(pageable)))
+                .thenReturn(new SliceImpl<>(List.of(1L), pageable, true));
+        when(repository.findWithCategoriesByIdIn(List.of(1L))).thenReturn(List.of(product));
+        when(countCache.get(eq("product:null:%%:null:null"), any())).thenReturn(42L);
+
+        Slice<ProductDTO> result = service.findAllSliced(0L, "", null, null, pageable, true);
+
+        assertThat(result).isInstanceOf(Page.class);
+        assertThat(((Page<ProductDTO>) result).getTotalElements()).isEqualTo(42L);
+    }
+
+    @Test
+    void deveRetornarProximoCursorQuandoHaMaisResultados() {
+        Product outro = new Product(2L, "Livro Kotlin", "Descrição", 80.0, "img.png", Instant.now());
+        when(repository.findNextByName(isNull(), eq("%livro%"), isNull(), isNull(), isNull(), isNull(), eq(PageRequest.of(0, 2))))
+                .thenReturn(List.of(product, outro));
+
+        CursorPageDTO<ProductDTO> result = service.findAllByCursor(0L, "livro", null, null, "", "name", 1);
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getNext()).isNotNull();
+
+        when(repository.findNextByName(isNull(), eq("%livro%"), isNull(), isNull(), eq("Livro Java"), eq(1L), any()))
+                .thenReturn(List.of(outro));
+
+        CursorPageDTO<ProductDTO> proxima = service.findAllByCursor(0L, "livro", null, null, result.getNext(), "name", 1);
+
+        assertThat(proxima.getContent()).extracting(ProductDTO::getId).containsExactly(2L);
+        assertThat(proxima.getNext()).isNull();
+    }
+
+    @Test
+    void deveLancarExcecaoQuandoCursorInvalido() {
+        assertThatThrownBy(() -> service.findAllByCursor(0L, "", null, null, "nao-e-um-cursor", "name", 10))
+                .isInstanceOf(InvalidParameterException.class);
+    }
+
+    @Test
+    void deveLimitarTamanhoDaPaginaDoCursor() {
+        assertThatThrownBy(() -> service.findAllByCursor(0L, "", null, null, "", "name", 0))
+                .isInstanceOf(InvalidParameterException.class);
+        assertThatThrownBy(() -> service.findAllByCursor(0L, "", null, null, "", "name", 1_000_000))
+                .isInstanceOf(InvalidParameterException.class);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void deveLancarExcecaoQuandoFaixaDePrecoInvertida() {
+        assertThatThrownBy(() -> service.findAllPaged(0L, "", 200.0, 100.0, PageRequest.of(0, 10)))
+                .isInstanceOf(InvalidParameterException.class);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void deveLancarExcecaoQuandoQuantidadeDeFaixasInvalida() {
+        assertThatThrownBy(() -> service.findPriceHistogram(0L, "", null, null, 0))
+                .isInstanceOf(InvalidParameterException.class);
+        assertThatThrownBy(() -> service.findPriceHistogram(0L, "", null, null, 101))
+                .isInstanceOf(InvalidParameterException.class);
+    }
+
+    @Test
+    void deveBuscarHistogramaComFiltroNormalizado() {
+        List<PriceBucketDTO> buckets = List.of(new PriceBucketDTO(0.0, 100.0, 3L));
+        when(repository.priceHistogram(null, "%livro%", null, 100.0, 1)).thenReturn(buckets);
+
+        assertThat(service.findPriceHistogram(0L, "Livro", null, 100.0, 1)).isSameAs(buckets);
+    }
+
+    @Test
+    void deveLancarExcecaoQuandoTamanhoDaSugestaoInvalido() {
+        assertThatThrownBy(() -> service.suggest("liv", 0)).isInstanceOf(InvalidParameterException.class);
+        assertThatThrownBy(() -> service.suggest("liv", 51)).isInstanceOf(InvalidParameterException.class);
+        verifyNoInteractions(nameIndex);
+    }
+
+    @Test
+    void deveBuscarLoteNaOrdemPedidaERelatarFaltantes() {
+        Product outro = new Product(2L, "Livro Kotlin", "Descrição", 80.0, "img.png", Instant.now());
+        when(repository.findWithCategoriesByIdIn(List.of(2L, 9L, 1L))).thenReturn(List.of(product, outro));
+
+        ProductBatchDTO result = service.findByIds(Arrays.asList(2L, 9L, null, 1L, 2L));
+
+        assertThat(result.getContent()).extracting(ProductDTO::getId).containsExactly(2L, 1L);
+        assertThat(result.getMissing()).containsExactly(9L);
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    void deveLancarExcecaoQuandoLoteExcedeLimite() {
+        List<Long> ids = LongStream.rangeClosed(1, 101).boxed().toList();
+
+        assertThatThrownBy(() -> service.findByIds(ids)).isInstanceOf(InvalidParameterException.class);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void deveBuscarSoAsColunasPedidasSemCategorias() {
+        Pageable pageable = PageRequest.of(0, 10);
+        FieldSet fields = FieldSet.of("name,price", ProductService.FIELDS);
+        ProductDTO parcial = new ProductDTO();
+        parcial.setId(1L);
+        parcial.setName("Livro Java");
+        when(repository.findIds(isNull(), eq("%%"), isNull(), isNull(), eq(pageable))).thenReturn(new PageImpl<>(List.of(1L)));
+        when(repository.findFieldsByIdIn(List.of(1L), fields.getFields())).thenReturn(List.of(parcial));
+
+        Slice<ProductDTO> result = service.findAllFields(0L, "", null, null, fields, CountMode.EXACT, pageable);
+
+        assertThat(result.getContent()).containsExactly(parcial);
+        verify(repository, never()).findWithCategoriesByIdIn(any());
+        verify(repository, never()).findCategoriesByProductIdIn(any());
+    }
+
+    @Test
+    void deveAnexarCategoriasQuandoPedidas() {
+        FieldSet fields = FieldSet.of("name,categories", ProductService.FIELDS);
+        ProductDTO parcial = new ProductDTO();
+        parcial.setId(1L);
+        when(repository.findFieldsByIdIn(List.of(1L), fields.getFields())).thenReturn(List.of(parcial));
+        when(repository.findCategoriesByProductIdIn(Set.of(1L)))
+                .thenReturn(List.of(new ProductCategoryDTO(1L, 1L, "Livros")));
+
+        ProductDTO result = service.findById(1L, fields);
+
+        assertThat(result.getCategories()).extracting(CategoryDTO::getName).containsExactly("Livros");
+    }
+
+    @Test
+    void deveUsarCargaCompletaQuandoTodosOsCamposForemPedidos() {
+        when(repository.findWithCategoriesByIdIn(List.of(1L))).thenReturn(List.of(product));
+
+        ProductDTO result = service.findById(1L, FieldSet.of(String.join(",", ProductService.FIELDS), ProductService.FIELDS));
+
+        assertThat(result.getDescription()).isEqualTo("Descrição");
+        verify(repository, never()).findFieldsByIdIn(any(), any());
+    }
+
+    @Test
+    void deveLancarExcecaoQuandoProdutoComCamposNaoExiste() {
+        when(repository.findFieldsByIdIn(List.of(9L), Set.of("id", "name"))).thenReturn(List.of());
+
+        assertThatThrownBy(() -> service.findById(9L, FieldSet.of("name", ProductService.FIELDS)))
+                .isInstanceOf(ResourceNotFoundException.class);
     }
 
     @Test
@@ -84,13 +298,67 @@ class ProductServiceTest {
     @Test
     void deveInserirProduto() {
         when(repository.save(any())).thenReturn(product);
-        when(categoryRepository.getReferenceById(1L)).thenReturn(category);
+        when(categoryResolver.resolve(List.of(1L))).thenReturn(Map.of(1L, category));
 
         ProductDTO dto = new ProductDTO(product, Set.of(category));
 
         ProductDTO result = service.insert(dto);
 
         assertThat(result.getName()).isEqualTo("Livro Java");
+        verify(nameIndex).put(1L, "Livro Java");
+    }
+
+    @Test
+    void deveAplicarSoOsCamposInformadosNoPatch() {
+        when(repository.findById(1L)).thenReturn(Optional.of(product));
+        ProductPatchDTO dto = new ProductPatchDTO();
+        dto.setPrice(50.0);
+
+        ProductDTO result = service.patch(1L, dto);
+
+        assertThat(result.getPrice()).isEqualTo(50.0);
+        assertThat(result.getName()).isEqualTo("Livro Java");
+        assertThat(product.getCategories()).containsExactly(category);
+        verifyNoInteractions(categoryResolver);
+        verify(catalogGeneration).bump();
+    }
+
+    @Test
+    void deveLancarExcecaoNoPatchQuandoProdutoNaoExiste() {
+        when(repository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.patch(99L, new ProductPatchDTO()))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void deveReajustarPrecoPercentualComUmUpdate() {
+        when(repository.adjustPrices(2L, "%tv%", 1.5, 0.0)).thenReturn(3);
+
+        PriceAdjustmentResultDTO result = service.adjustPrices(new PriceAdjustmentDTO(2L, " TV ", 50.0, null));
+
+        assertThat(result.getUpdated()).isEqualTo(3);
+        verify(catalogGeneration).bump();
+        verify(countCache).invalidate("product:");
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void naoDeveInvalidarCachesQuandoReajusteNaoMudaNada() {
+        when(repository.adjustPrices(2L, "%%", 1.1, 0.0)).thenReturn(0);
+
+        service.adjustPrices(new PriceAdjustmentDTO(2L, null, 10.0, null));
+
+        verifyNoInteractions(countCache, catalogGeneration);
+    }
+
+    @Test
+    void deveRecusarReajusteComPercentualEValorFixo() {
+        assertThatThrownBy(() -> service.adjustPrices(new PriceAdjustmentDTO(2L, null, 10.0, 5.0)))
+                .isInstanceOf(InvalidParameterException.class);
+        assertThatThrownBy(() -> service.adjustPrices(new PriceAdjustmentDTO(2L, null, -100.0, null)))
+                .isInstanceOf(InvalidParameterException.class);
+        verifyNoInteractions(repository);
     }
 
     @Test
@@ -100,6 +368,9 @@ class ProductServiceTest {
         service.delete(1L);
 
         verify(repository).deleteById(1L);
+        verify(countCache).invalidate("product:");
+        verify(catalogGeneration).bump();
+        verify(nameIndex).delete(1L);
     }
 
     @Test
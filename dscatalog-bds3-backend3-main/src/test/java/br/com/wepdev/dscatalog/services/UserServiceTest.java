@@ -1,25 +1,35 @@
 package br.com.wepdev.dscatalog.services;
 
+import br.com.wepdev.dscatalog.components.CountCache;
+import br.com.wepdev.dscatalog.components.RoleRegistry;
+import br.com.wepdev.dscatalog.config.PrimaryReads;
 import br.com.wepdev.dscatalog.domain.Role;
 import br.com.wepdev.dscatalog.domain.User;
 import br.com.wepdev.dscatalog.dto.RoleDTO;
 import br.com.wepdev.dscatalog.dto.UserDTO;
 import br.com.wepdev.dscatalog.dto.UserInsertDTO;
 import br.com.wepdev.dscatalog.dto.UserUpdateDTO;
-import br.com.wepdev.dscatalog.repositories.RoleRepository;
 import br.com.wepdev.dscatalog.repositories.UserRepository;
 import br.com.wepdev.dscatalog.services.exceptions.DatabaseException;
 import br.com.wepdev.dscatalog.services.exceptions.ResourceNotFoundException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.*;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.userdetails.cache.SpringCacheBasedUserCache;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import javax.persistence.EntityNotFoundException;
 import java.util.List;
@@ -36,10 +46,20 @@ class UserServiceTest {
     private UserRepository repository;
 
     @Mock
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
 
     @Mock
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private CountCache countCache;
+
+    @Mock
+    private UserCache userCache;
+
+    // sem réplica: a carga é chamada direto
+    @Spy
+    private PrimaryReads primaryReads = new PrimaryReads(null, null);
 
     @InjectMocks
     private UserService service;
@@ -76,6 +96,18 @@ class UserServiceTest {
         assertThat(result.getContent()).hasSize(1);
     }
 
+    @Test
+    void deveBuscarUsuariosEmSliceSemContagem() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(repository.findAllBy(pageable)).thenReturn(new SliceImpl<>(List.of(criarUsuario()), pageable, false));
+
+        Slice<UserDTO> result = service.findAllSliced(pageable, false);
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.hasNext()).isFalse();
+        verify(repository, never()).count();
+    }
+
     @Test
     void deveBuscarUsuarioPorIdQuandoExiste() {
         when(repository.findById(1L)).thenReturn(Optional.of(criarUsuario()));
@@ -132,6 +164,9 @@ class UserServiceTest {
 
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(1L);
+        // o email antigo e o novo saem do cache de login
+        verify(userCache).removeUserFromCache("maria@email.com");
+        verify(userCache).removeUserFromCache("novo@email.com");
     }
 
     @Test
@@ -146,10 +181,12 @@ class UserServiceTest {
 
     @Test
     void deveExcluirUsuarioQuandoExiste() {
+        when(repository.findEmailById(1L)).thenReturn(Optional.of("maria@email.com"));
         doNothing().when(repository).deleteById(1L);
 
         assertThatCode(() -> service.delete(1L))
                 .doesNotThrowAnyException();
+        verify(userCache).removeUserFromCache("maria@email.com");
     }
 
     @Test
@@ -181,6 +218,103 @@ class UserServiceTest {
         assertThat(result.getUsername()).isEqualTo("maria@email.com");
     }
 
+    @Test
+    void deveGuardarUsuarioNoCacheEServirOProximoLoginSemConsulta() {
+        User user = criarUsuario();
+        when(repository.findByEmail("maria@email.com")).thenReturn(user);
+
+        service.loadUserByUsername("maria@email.com");
+        ArgumentCaptor<UserDetails> captor = ArgumentCaptor.forClass(UserDetails.class);
+        verify(userCache).putUserInCache(captor.capture());
+
+        when(userCache.getUserFromCache("maria@email.com")).thenReturn(captor.getValue());
+        var result = service.loadUserByUsername("maria@email.com");
+
+        assertThat(result.getUsername()).isEqualTo("maria@email.com");
+        assertThat(result.getPassword()).isEqualTo("senhaCodificada");
+        verify(repository, times(1)).findByEmail("maria@email.com");
+    }
+
+    @Test
+    void deveGuardarNoCacheUmaCopiaImutavelENaoAEntidade() {
+        User user = criarUsuario();
+        when(repository.findByEmail("maria@email.com")).thenReturn(user);
+        when(roleRegistry.authoritiesOf(user.getRoles())).thenReturn(List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        service.loadUserByUsername("maria@email.com");
+        ArgumentCaptor<UserDetails> captor = ArgumentCaptor.forClass(UserDetails.class);
+        verify(userCache).putUserInCache(captor.capture());
+
+        // mexer na entidade depois do login não altera o que está no cache
+        user.setPassword("outraSenha");
+        user.getRoles().clear();
+
+        assertThat(captor.getValue()).isInstanceOf(CatalogUserDetails.class).isNotSameAs(user);
+        CatalogUserDetails cached = (CatalogUserDetails) captor.getValue();
+        assertThat(cached.getPassword()).isEqualTo("senhaCodificada");
+        assertThat(cached.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_USER");
+        assertThat(cached.getId()).isEqualTo(1L);
+        assertThat(cached.getFirstName()).isEqualTo("Maria");
+    }
+
+    @Test
+    void deveManterASenhaNoCacheQuandoOLoginApagaAsCredenciais() {
+        when(repository.findByEmail("maria@email.com")).thenReturn(criarUsuario());
+
+        var result = (CatalogUserDetails) service.loadUserByUsername("maria@email.com");
+        ArgumentCaptor<UserDetails> captor = ArgumentCaptor.forClass(UserDetails.class);
+        verify(userCache).putUserInCache(captor.capture());
+
+        // o ProviderManager faz isso com o principal depois de autenticar
+        result.eraseCredentials();
+
+        assertThat(result.getPassword()).isNull();
+        assertThat(captor.getValue().getPassword()).isEqualTo("senhaCodificada");
+    }
+
+    @Test
+    void deveRecarregarPerfisNoProximoLoginDepoisDaAtualizacao() {
+        UserCache cache = new SpringCacheBasedUserCache(new ConcurrentMapCache("users"));
+        UserService service = new UserService(passwordEncoder, repository, roleRegistry, countCache, cache, primaryReads);
+        User user = criarUsuario();
+        Role admin = new Role();
+        admin.setId(2L);
+        admin.setAuthority("ROLE_ADMIN");
+        when(repository.findByEmail("maria@email.com")).thenReturn(user);
+        when(roleRegistry.authoritiesOf(any())).thenAnswer(invocation -> invocation.<Set<Role>>getArgument(0).stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.getAuthority())).toList());
+        when(roleRegistry.resolve(List.of(2L))).thenReturn(List.of(admin));
+        when(repository.getReferenceById(1L)).thenReturn(user);
+        when(repository.save(user)).thenReturn(user);
+
+        assertThat(service.loadUserByUsername("maria@email.com").getAuthorities())
+                .extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_USER");
+
+        UserUpdateDTO dto = new UserUpdateDTO();
+        dto.setFirstName("Maria");
+        dto.setLastName("Silva");
+        dto.setEmail("maria@email.com");
+        dto.getRoles().add(new RoleDTO(2L, null));
+        service.update(1L, dto);
+
+        assertThat(cache.getUserFromCache("maria@email.com")).isNull();
+        assertThat(service.loadUserByUsername("maria@email.com").getAuthorities())
+                .extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_ADMIN");
+        verify(repository, times(2)).findByEmail("maria@email.com");
+    }
+
+    @Test
+    void deveUsarAuthoritiesCompartilhadasDoRegistroNoLogin() {
+        User user = criarUsuario();
+        GrantedAuthority authority = new SimpleGrantedAuthority("ROLE_USER");
+        when(repository.findByEmail("maria@email.com")).thenReturn(user);
+        when(roleRegistry.authoritiesOf(user.getRoles())).thenReturn(List.of(authority));
+
+        var result = service.loadUserByUsername("maria@email.com");
+
+        assertThat(result.getAuthorities()).singleElement().isSameAs(authority);
+    }
+
     @Test
     void deveLancarExcecaoQuandoEmailNaoExiste() {
         when(repository.findByEmail("x@email.com")).thenReturn(null);
@@ -188,4 +322,26 @@ class UserServiceTest {
         assertThatThrownBy(() -> service.loadUserByUsername("x@email.com"))
                 .isInstanceOf(UsernameNotFoundException.class);
     }
+
+    @Test
+    void deveBuscarUsuariosPorProjecaoQuandoRolesNaoForemPedidos() {
+        Pageable pageable = PageRequest.of(0, 10);
+        UserDTO summary = new UserDTO(1L, "Maria", "Silva", "maria@email.com");
+        when(repository.findSummaries(pageable)).thenReturn(new PageImpl<>(List.of(summary)));
+
+        Slice<UserDTO> result = service.findAllFields(FieldSet.of("email", UserService.FIELDS), CountMode.EXACT, pageable);
+
+        assertThat(result.getContent()).containsExactly(summary);
+        verify(repository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void deveCarregarEntidadeQuandoRolesForemPedidos() {
+        when(repository.findById(1L)).thenReturn(Optional.of(criarUsuario()));
+
+        UserDTO dto = service.findById(1L, FieldSet.of("email,roles", UserService.FIELDS));
+
+        assertThat(dto.getRoles()).hasSize(1);
+        verify(repository, never()).findSummaryById(any());
+    }
 }